@@ -1,12 +1,19 @@
 package org.bbottema.genericobjectpool;
 
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * A factory which is responsible for creating the Object V based on the Pool Key.  The returned Object will be wrapped in a {@link PoolableObject} and inserted into the Pool for access
  *
  * @param <T> the value type
  */
+@Slf4j
 @SuppressWarnings("unused")
 public abstract class Allocator<T> {
 	
@@ -16,6 +23,57 @@ public abstract class Allocator<T> {
 	@NotNull
 	public abstract T allocate();
 	
+	/**
+	 * Creates several objects at once, for resources that are cheaper to create in batches. The pool uses this when it needs more than one object at the same
+	 * time: filling up the core pool and growing for several waiting claimers.
+	 * <p>
+	 * Partial success is fine: return the objects that could be created and the pool will ask for the rest later. Returning no objects at all counts as a
+	 * failed allocation, as does throwing an exception. The default implementation calls {@link #allocate()} {@code n} times and returns what it has so far
+	 * (logging the failure) when one of those fails. Without an override, claimers don't batch: each one only allocates its own object.
+	 *
+	 * @param n The number of objects needed, always more than one.
+	 * @return Up to {@code n} new Objects to be inserted into the Pool.
+	 */
+	@NotNull
+	public List<T> allocateBatch(int n) {
+		final List<T> objects = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			try {
+				objects.add(allocate());
+			} catch (RuntimeException e) {
+				if (objects.isEmpty()) {
+					throw e;
+				}
+				log.warn("Not able to allocate more than {} of a batch of {} objects, the pool will ask for the rest later", objects.size(), n, e);
+				break;
+			}
+		}
+		return objects;
+	}
+	
+	/**
+	 * Attributes of a newly allocated object, such as the datacenter or schema a connection points to, which claimers can select objects by with
+	 * {@link GenericObjectPool#claimMatching(String, Object, org.bbottema.genericobjectpool.util.Timeout)}. Available objects are indexed by their attributes,
+	 * so such claims don't have to scan all available objects. Attributes are fixed for the life of the object; values need proper {@code equals} and
+	 * {@code hashCode} implementations.
+	 *
+	 * @return No attributes by default.
+	 */
+	@NotNull
+	public Map<String, Object> attributesOf(T object) {
+		return Collections.emptyMap();
+	}
+	
+	/**
+	 * The cost of a newly allocated object, such as a buffer's size in bytes or a connection's estimated server-side memory, counted against
+	 * {@link PoolConfig#getMaxPoolWeight()} and reported in {@link PoolMetrics#getCurrentWeight()}. Determined once per object.
+	 *
+	 * @return 1 by default, so a pool's weight is its number of objects.
+	 */
+	public long weigh(T object) {
+		return 1;
+	}
+	
 	/**
 	 * Uninitialize an instance which has been released back to the pool, until it is claimed again.
 	 */
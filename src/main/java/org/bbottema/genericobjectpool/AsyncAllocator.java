@@ -0,0 +1,52 @@
+package org.bbottema.genericobjectpool;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link Allocator} that creates (and returns and cleans up) objects asynchronously, so no claimer or pool thread is tied up for the duration of, for
+ * example, a network handshake. The pool starts as many allocations at the same time as there are claimers waiting for an object (within the max pool
+ * size), and hands completed objects straight to waiting claimers.
+ * <p>
+ * {@link #allocateForReuse(Object)} stays synchronous, as a claim returns a ready-to-use object.
+ *
+ * @param <T> the value type
+ */
+@SuppressWarnings("unused")
+public abstract class AsyncAllocator<T> extends Allocator<T> {
+
+	/**
+	 * @return A future for a new Object to be inserted into the Pool.
+	 */
+	@NotNull
+	public abstract CompletableFuture<T> allocateAsync();
+
+	/**
+	 * Blocking variant of {@link #allocateAsync()}, not used by the pool itself.
+	 */
+	@NotNull
+	@Override
+	public T allocate() {
+		return allocateAsync().join();
+	}
+
+	/**
+	 * Uninitialize an instance which has been released back to the pool. The object can only be claimed again once the returned future completed. Defaults to
+	 * {@link #deallocateForReuse(Object)}.
+	 */
+	@NotNull
+	public CompletableFuture<Void> deallocateForReuseAsync(T object) {
+		deallocateForReuse(object);
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Clean up an object no longer needed by the pool. Defaults to {@link #deallocate(Object)}.
+	 */
+	@NotNull
+	public CompletableFuture<Void> deallocateAsync(T object) {
+		deallocate(object);
+		return CompletableFuture.completedFuture(null);
+	}
+}
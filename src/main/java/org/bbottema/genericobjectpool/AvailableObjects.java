@@ -0,0 +1,249 @@
+package org.bbottema.genericobjectpool;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Store of objects available for claiming, ordered so that claims are served according to the configured {@link SelectionStrategy}.
+ * <p>
+ * Implemented as a doubly linked list that uses the links on {@link PoolableObject} itself, so adding and removing objects doesn't allocate list nodes.
+ * Objects with attributes (see {@link Allocator#attributesOf(Object)}) are indexed by them as well, and for {@link SelectionStrategy#RANDOM} the objects are
+ * also kept in an array, so a random one can be picked without walking the list.
+ * <p>
+ * Not thread-safe, guarded by the lock of the pool stripe it belongs to.
+ */
+class AvailableObjects<T> implements Iterable<PoolableObject<T>> {
+
+	@NotNull private final SelectionStrategy selectionStrategy;
+	@Nullable private PoolableObject<T> head;
+	@Nullable private PoolableObject<T> tail;
+	private int size;
+	/**
+	 * Objects by attribute key and value, in the order they were added. Only created once an object with attributes is added.
+	 */
+	@Nullable private Map<String, Map<Object, Set<PoolableObject<T>>>> attributeIndex;
+	/**
+	 * Only for {@link SelectionStrategy#RANDOM}: the objects in this store, each at the index recorded in {@link PoolableObject#randomSlot}. A removed
+	 * object's slot is filled with the last slot, so every object has exactly one slot.
+	 */
+	@Nullable private final ArrayList<PoolableObject<T>> randomSlots;
+
+	AvailableObjects(@NotNull final SelectionStrategy selectionStrategy) {
+		this.selectionStrategy = selectionStrategy;
+		this.randomSlots = selectionStrategy == SelectionStrategy.RANDOM ? new ArrayList<PoolableObject<T>>() : null;
+	}
+
+	void add(@NotNull final PoolableObject<T> poolableObject) {
+		if (selectionStrategy == SelectionStrategy.LRU) {
+			linkAfter(findPredecessorByAllocationStamp(poolableObject), poolableObject);
+		} else {
+			linkAfter(tail, poolableObject);
+		}
+	}
+
+	/**
+	 * Keeps the least recently claimed object at the head. Walks back from the tail, which is typically short, as most objects are released shortly after
+	 * being claimed.
+	 */
+	@Nullable
+	private PoolableObject<T> findPredecessorByAllocationStamp(@NotNull final PoolableObject<T> poolableObject) {
+		PoolableObject<T> predecessor = tail;
+		while (predecessor != null && predecessor.getAllocationStampMs() > poolableObject.getAllocationStampMs()) {
+			predecessor = predecessor.previousAvailable;
+		}
+		return predecessor;
+	}
+
+	@Nullable
+	PoolableObject<T> poll() {
+		final PoolableObject<T> poolableObject;
+		switch (selectionStrategy) {
+			case LIFO: poolableObject = tail; break;
+			case RANDOM: poolableObject = pickRandom(); break;
+			default: poolableObject = head;
+		}
+		if (poolableObject != null) {
+			unlink(poolableObject);
+		}
+		return poolableObject;
+	}
+
+	@SuppressWarnings("ConstantConditions")
+	@Nullable
+	private PoolableObject<T> pickRandom() {
+		return size > 0 ? randomSlots.get(ThreadLocalRandom.current().nextInt(size)) : null;
+	}
+
+	/**
+	 * Scans the objects in order until one matches.
+	 */
+	@Nullable
+	PoolableObject<T> pollMatching(@NotNull final Predicate<PoolableObject<T>> predicate) {
+		for (PoolableObject<T> poolableObject = head; poolableObject != null; poolableObject = poolableObject.nextAvailable) {
+			if (predicate.test(poolableObject)) {
+				unlink(poolableObject);
+				return poolableObject;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Looks up the object that was added first among the objects with the given attribute value, without scanning.
+	 */
+	@Nullable
+	PoolableObject<T> pollWithAttribute(@NotNull final String key, @NotNull final Object value) {
+		final Map<Object, Set<PoolableObject<T>>> objectsByValue = attributeIndex != null ? attributeIndex.get(key) : null;
+		final Set<PoolableObject<T>> objects = objectsByValue != null ? objectsByValue.get(value) : null;
+		if (objects == null) {
+			return null;
+		}
+		final PoolableObject<T> poolableObject = objects.iterator().next();
+		unlink(poolableObject);
+		return poolableObject;
+	}
+
+	boolean remove(@NotNull final PoolableObject<T> poolableObject) {
+		if (poolableObject.availableIn != this) {
+			return false;
+		}
+		unlink(poolableObject);
+		return true;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	private void linkAfter(@Nullable final PoolableObject<T> predecessor, @NotNull final PoolableObject<T> poolableObject) {
+		final PoolableObject<T> successor = predecessor != null ? predecessor.nextAvailable : head;
+		poolableObject.previousAvailable = predecessor;
+		poolableObject.nextAvailable = successor;
+		poolableObject.availableIn = this;
+		if (predecessor != null) {
+			predecessor.nextAvailable = poolableObject;
+		} else {
+			head = poolableObject;
+		}
+		if (successor != null) {
+			successor.previousAvailable = poolableObject;
+		} else {
+			tail = poolableObject;
+		}
+		size++;
+		if (randomSlots != null) {
+			poolableObject.randomSlot = randomSlots.size();
+			randomSlots.add(poolableObject);
+		}
+		if (!poolableObject.getAttributes().isEmpty()) {
+			index(poolableObject);
+		}
+	}
+
+	private void index(@NotNull final PoolableObject<T> poolableObject) {
+		if (attributeIndex == null) {
+			attributeIndex = new HashMap<>();
+		}
+		for (final Map.Entry<String, Object> attribute : poolableObject.getAttributes().entrySet()) {
+			attributeIndex.computeIfAbsent(attribute.getKey(), key -> new HashMap<>())
+					.computeIfAbsent(attribute.getValue(), value -> new LinkedHashSet<>())
+					.add(poolableObject);
+		}
+	}
+
+	@SuppressWarnings("ConstantConditions")
+	private void unindex(@NotNull final PoolableObject<T> poolableObject) {
+		for (final Map.Entry<String, Object> attribute : poolableObject.getAttributes().entrySet()) {
+			final Map<Object, Set<PoolableObject<T>>> objectsByValue = attributeIndex.get(attribute.getKey());
+			final Set<PoolableObject<T>> objects = objectsByValue.get(attribute.getValue());
+			objects.remove(poolableObject);
+			if (objects.isEmpty()) {
+				objectsByValue.remove(attribute.getValue());
+				if (objectsByValue.isEmpty()) {
+					attributeIndex.remove(attribute.getKey());
+				}
+			}
+		}
+	}
+
+	private void unlink(@NotNull final PoolableObject<T> poolableObject) {
+		final PoolableObject<T> predecessor = poolableObject.previousAvailable;
+		final PoolableObject<T> successor = poolableObject.nextAvailable;
+		if (predecessor != null) {
+			predecessor.nextAvailable = successor;
+		} else {
+			head = successor;
+		}
+		if (successor != null) {
+			successor.previousAvailable = predecessor;
+		} else {
+			tail = predecessor;
+		}
+		poolableObject.previousAvailable = null;
+		poolableObject.nextAvailable = null;
+		poolableObject.availableIn = null;
+		size--;
+		if (randomSlots != null) {
+			removeRandomSlot(poolableObject);
+		}
+		if (!poolableObject.getAttributes().isEmpty()) {
+			unindex(poolableObject);
+		}
+	}
+
+	@SuppressWarnings("ConstantConditions")
+	private void removeRandomSlot(@NotNull final PoolableObject<T> poolableObject) {
+		final PoolableObject<T> last = randomSlots.remove(randomSlots.size() - 1);
+		if (last != poolableObject) {
+			randomSlots.set(poolableObject.randomSlot, last);
+			last.randomSlot = poolableObject.randomSlot;
+		}
+	}
+
+	@NotNull
+	@Override
+	public Iterator<PoolableObject<T>> iterator() {
+		return new Iterator<PoolableObject<T>>() {
+			@Nullable private PoolableObject<T> next = head;
+			@Nullable private PoolableObject<T> lastReturned;
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public PoolableObject<T> next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				lastReturned = next;
+				next = next.nextAvailable;
+				return lastReturned;
+			}
+
+			@Override
+			public void remove() {
+				if (lastReturned == null) {
+					throw new IllegalStateException();
+				}
+				unlink(lastReturned);
+				lastReturned = null;
+			}
+		};
+	}
+}
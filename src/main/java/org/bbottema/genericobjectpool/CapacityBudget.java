@@ -0,0 +1,164 @@
+package org.bbottema.genericobjectpool;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A limit on the number of objects several pools may have allocated together, for example when each shard has its own pool but the database has a global
+ * connection limit. Configure the same budget on each pool with {@link PoolConfig#getCapacityBudget()}; each pool's own max pool size still applies too.
+ * <p>
+ * Every allocated object holds a permit from the budget until it has been deallocated. When the budget is exhausted and a pool has claimers waiting for an
+ * object, the pool's housekeeping can evict an idle object from another pool to free up a permit, as determined by the {@link EvictionPolicy}. Only pools
+ * above their core pool size give up objects this way, so their core pools are not refilled at the expense of the pool that needed the capacity.
+ */
+public final class CapacityBudget {
+
+	public enum EvictionPolicy {
+		/**
+		 * Never evicts objects from other pools, pools with waiting claimers have to wait for other pools to deallocate objects on their own.
+		 */
+		NEVER,
+		/**
+		 * Evicts an idle object from the pool with the most idle objects.
+		 */
+		MOST_IDLE,
+		/**
+		 * Evicts an idle object from the pool with the most objects allocated.
+		 */
+		LARGEST
+	}
+
+	private final int maxAllocated;
+	@NotNull private final EvictionPolicy evictionPolicy;
+	@NotNull private final AtomicInteger availablePermits;
+	@NotNull private final List<GenericObjectPool<?>> pools = new CopyOnWriteArrayList<>();
+	/**
+	 * Objects evicted for a pool that haven't been deallocated yet, so their permits are still on their way to that pool's waiting claimers.
+	 */
+	@NotNull private final Map<PoolableObject<?>, GenericObjectPool<?>> evictedObjects = new ConcurrentHashMap<>();
+	@NotNull private final Map<GenericObjectPool<?>, AtomicInteger> evictionsInFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a budget that evicts idle objects from the pool with the most idle objects when needed.
+	 */
+	public CapacityBudget(final int maxAllocated) {
+		this(maxAllocated, EvictionPolicy.MOST_IDLE);
+	}
+
+	public CapacityBudget(final int maxAllocated, @NotNull final EvictionPolicy evictionPolicy) {
+		if (maxAllocated <= 0) {
+			throw new IllegalArgumentException("Capacity budget should allow at least one object");
+		}
+		this.maxAllocated = maxAllocated;
+		this.evictionPolicy = evictionPolicy;
+		this.availablePermits = new AtomicInteger(maxAllocated);
+	}
+
+	public int getMaxAllocated() {
+		return maxAllocated;
+	}
+
+	public int getAvailablePermits() {
+		return availablePermits.get();
+	}
+
+	@NotNull
+	public EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
+
+	/**
+	 * @return The number of permits acquired, at most {@code wanted} and possibly 0.
+	 */
+	int tryAcquire(final int wanted) {
+		int available;
+		int acquired;
+		do {
+			available = availablePermits.get();
+			acquired = Math.min(wanted, available);
+			if (acquired <= 0) {
+				return 0;
+			}
+		} while (!availablePermits.compareAndSet(available, available - acquired));
+		return acquired;
+	}
+
+	void release(final int permits) {
+		availablePermits.addAndGet(permits);
+	}
+
+	/**
+	 * Releases the permit of a deallocated object, which completes its eviction if it was evicted for another pool.
+	 */
+	void release(@NotNull final PoolableObject<?> deallocatedObject) {
+		release(1);
+		final GenericObjectPool<?> requestingPool = evictedObjects.remove(deallocatedObject);
+		final AtomicInteger inFlight = requestingPool != null ? evictionsInFlight.get(requestingPool) : null;
+		if (inFlight != null) {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return The number of objects evicted for the given pool whose permits have not been released yet.
+	 */
+	int getEvictionsInFlightFor(@NotNull final GenericObjectPool<?> requestingPool) {
+		final AtomicInteger inFlight = evictionsInFlight.get(requestingPool);
+		return inFlight != null ? inFlight.get() : 0;
+	}
+
+	void register(@NotNull final GenericObjectPool<?> pool) {
+		pools.add(pool);
+		evictionsInFlight.put(pool, new AtomicInteger());
+	}
+
+	void deregister(@NotNull final GenericObjectPool<?> pool) {
+		pools.remove(pool);
+		evictionsInFlight.remove(pool);
+	}
+
+	/**
+	 * Evicts an idle object from another pool (according to the eviction policy), to make room for claimers waiting in the given pool. Must not be called
+	 * with any pool's claim lock held.
+	 *
+	 * @return whether an object was evicted, its permit is returned to the budget once it has been deallocated, until then it counts towards
+	 * {@link #getEvictionsInFlightFor(GenericObjectPool)}
+	 */
+	boolean evictIdleObjectFor(@NotNull final GenericObjectPool<?> requestingPool) {
+		if (evictionPolicy == EvictionPolicy.NEVER) {
+			return false;
+		}
+		final GenericObjectPool<?> victim = selectVictim(requestingPool);
+		return victim != null && victim.evictIdleObject(evictedObject -> {
+			final AtomicInteger inFlight = evictionsInFlight.get(requestingPool);
+			if (inFlight != null) { // else the requesting pool was deregistered while shutting down
+				inFlight.incrementAndGet();
+				evictedObjects.put(evictedObject, requestingPool);
+			}
+		});
+	}
+
+	@Nullable
+	private GenericObjectPool<?> selectVictim(@NotNull final GenericObjectPool<?> requestingPool) {
+		GenericObjectPool<?> victim = null;
+		int victimScore = 0;
+		for (final GenericObjectPool<?> pool : pools) {
+			final PoolMetrics metrics = pool.getPoolMetrics();
+			final int idle = metrics.getCurrentlyAllocated() - metrics.getCurrentlyClaimed();
+			if (pool != requestingPool && idle > 0 && metrics.getCurrentlyAllocated() > metrics.getCorePoolsize()) {
+				final int score = evictionPolicy == EvictionPolicy.MOST_IDLE ? idle : metrics.getCurrentlyAllocated();
+				if (score > victimScore) {
+					victim = pool;
+					victimScore = score;
+				}
+			}
+		}
+		return victim;
+	}
+}
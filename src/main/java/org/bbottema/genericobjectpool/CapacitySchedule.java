@@ -0,0 +1,124 @@
+package org.bbottema.genericobjectpool;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Raises the core pool size during known busy periods of the day, so the pool is warm before the load arrives rather than growing while claimers wait.
+ * Configure it with {@link PoolConfig#getCapacitySchedule()}.
+ * <p>
+ * The pool's housekeeping starts filling up to a window's core pool size the lead time before the window starts, and when the window ends, retires idle
+ * objects above the core pool size that applies from then on. Outside the windows, the pool's own core pool size applies; windows never lower it. When
+ * windows overlap, the highest core pool size wins. Scheduled sizes are capped at the pool's max size.
+ */
+public final class CapacitySchedule {
+
+	@NotNull private final List<Window> windows;
+	@NotNull private final Duration leadTime;
+	@NotNull private final Clock clock;
+
+	/**
+	 * Creates a schedule in the system default time zone.
+	 */
+	public CapacitySchedule(@NotNull final List<Window> windows, @NotNull final Duration leadTime) {
+		this(windows, leadTime, Clock.systemDefaultZone());
+	}
+
+	/**
+	 * @param clock Determines the time zone the windows are in, and lets tests control the time of day.
+	 */
+	public CapacitySchedule(@NotNull final List<Window> windows, @NotNull final Duration leadTime, @NotNull final Clock clock) {
+		if (leadTime.isNegative()) {
+			throw new IllegalArgumentException("Lead time cannot be negative");
+		}
+		this.windows = Collections.unmodifiableList(new ArrayList<>(windows));
+		this.leadTime = leadTime;
+		this.clock = clock;
+	}
+
+	@NotNull
+	public List<Window> getWindows() {
+		return windows;
+	}
+
+	@NotNull
+	public Duration getLeadTime() {
+		return leadTime;
+	}
+
+	/**
+	 * @return The highest core pool size of the windows that are active now or start within the lead time, 0 if there are none.
+	 */
+	int getScheduledCorePoolsize() {
+		final ZonedDateTime now = ZonedDateTime.now(clock);
+		final ZonedDateTime leadTimeFromNow = now.plus(leadTime);
+		int scheduledCorePoolsize = 0;
+		for (final Window window : windows) {
+			if (window.corePoolsize > scheduledCorePoolsize && (window.isActiveAt(now) || window.startsBetween(now, leadTimeFromNow))) {
+				scheduledCorePoolsize = window.corePoolsize;
+			}
+		}
+		return scheduledCorePoolsize;
+	}
+
+	/**
+	 * A daily time range with the core pool size that applies during it. A window that ends at or before its start time runs past midnight, in which case its
+	 * days are the days it starts on.
+	 */
+	@Value
+	public static class Window {
+		@NotNull private final Set<DayOfWeek> days;
+		@NotNull private final LocalTime start;
+		@NotNull private final LocalTime end;
+		private final int corePoolsize;
+
+		public Window(@NotNull final Set<DayOfWeek> days, @NotNull final LocalTime start, @NotNull final LocalTime end, final int corePoolsize) {
+			if (days.isEmpty()) {
+				throw new IllegalArgumentException("Window should apply to at least one day of the week");
+			}
+			if (corePoolsize < 0) {
+				throw new IllegalArgumentException("Core pool size cannot be negative");
+			}
+			this.days = Collections.unmodifiableSet(EnumSet.copyOf(days));
+			this.start = start;
+			this.end = end;
+			this.corePoolsize = corePoolsize;
+		}
+
+		@NotNull
+		public static Window daily(@NotNull final LocalTime start, @NotNull final LocalTime end, final int corePoolsize) {
+			return new Window(EnumSet.allOf(DayOfWeek.class), start, end, corePoolsize);
+		}
+
+		boolean isActiveAt(@NotNull final ZonedDateTime dateTime) {
+			final LocalTime time = dateTime.toLocalTime();
+			final DayOfWeek day = dateTime.getDayOfWeek();
+			if (start.isBefore(end)) {
+				return days.contains(day) && !time.isBefore(start) && time.isBefore(end);
+			}
+			return (days.contains(day) && !time.isBefore(start)) || (days.contains(day.minus(1)) && time.isBefore(end));
+		}
+
+		boolean startsBetween(@NotNull final ZonedDateTime from, @NotNull final ZonedDateTime to) {
+			ZonedDateTime nextStart = from.with(start);
+			if (!nextStart.isAfter(from)) {
+				nextStart = nextStart.plusDays(1).with(start);
+			}
+			while (!days.contains(nextStart.getDayOfWeek())) {
+				nextStart = nextStart.plusDays(1).with(start);
+			}
+			return !nextStart.isAfter(to);
+		}
+	}
+}
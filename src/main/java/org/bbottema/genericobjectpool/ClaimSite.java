@@ -0,0 +1,14 @@
+package org.bbottema.genericobjectpool;
+
+/**
+ * Records who claimed a {@link PoolableObject}, so a possible leak can be reported along with its holder. Only carries a stack trace if the claim was
+ * sampled for it (see {@link PoolConfig#getLeakDetectionStackTraceSampleRate()}), as filling in stack traces is expensive.
+ */
+class ClaimSite extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	ClaimSite(final String claimingThreadName, final boolean withStackTrace) {
+		super("Object claimed by thread '" + claimingThreadName + "'" + (withStackTrace ? "" : " (claim-site stack trace not sampled)"), null, false, withStackTrace);
+	}
+}
@@ -9,6 +9,16 @@ import static lombok.AccessLevel.PRIVATE;
 
 public interface ExpirationPolicy<T> {
 	boolean hasExpired(@NotNull PoolableObject<T> poolableObject);
+
+	/**
+	 * Called by the pool's housekeeping right before it checks the available objects for expiry, so a policy can take the pool's load into account.
+	 *
+	 * @param currentTimeMs      The current time according to the pool's {@link PoolConfig#getClock()}.
+	 * @param peakClaimed        The highest number of objects claimed at the same time since the previous expiry check.
+	 * @param currentlyAllocated The number of objects currently allocated, claimed or not.
+	 */
+	default void beforeExpiryCheck(long currentTimeMs, int peakClaimed, int currentlyAllocated) {
+	}
 	
 	@NonFinal
 	@Value
@@ -2,24 +2,42 @@ package org.bbottema.genericobjectpool;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bbottema.genericobjectpool.util.Clock;
+import org.bbottema.genericobjectpool.util.Deadline;
+import org.bbottema.genericobjectpool.util.RateLimiter;
 import org.bbottema.genericobjectpool.util.SleepUtil;
 import org.bbottema.genericobjectpool.util.Timeout;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static java.util.Objects.requireNonNull;
@@ -31,29 +49,190 @@ public class GenericObjectPool<T> {
 
 	private static final int DEALLOCATION_WAIT_MS = 100;
 	private static final int MATCHING_CLAIM_RECHECK_INTERVAL_MS = 10;
+	private static final int MAX_WARM_UP_THREADS = 8;
+	private static final long CAPACITY_SCHEDULE_CHECK_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long MEMORY_PRESSURE_CHECK_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1);
+	private static final long MIN_ASYNC_ALLOCATION_BACKOFF_NS = TimeUnit.MILLISECONDS.toNanos(5);
+	private static final long MAX_ASYNC_ALLOCATION_BACKOFF_NS = TimeUnit.SECONDS.toNanos(1);
+	/**
+	 * The time constant of the moving average of idle objects in the {@link SizingProfile}.
+	 */
+	private static final double TYPICAL_IDLE_WINDOW_MS = 60_000;
 	
-	@NotNull private final Lock claimLock = new ReentrantLock();
+	@NotNull private final ReentrantLock claimLock = new ReentrantLock();
 	@NotNull private final Lock deallocateLock = new ReentrantLock();
-	@NotNull private final LinkedList<PoolableObject<T>> available = new LinkedList<>();
+	/**
+	 * Available objects, divided over one or more stripes (see {@link PoolConfig#getStripes()}). A single stripe is guarded by the claim lock itself.
+	 */
+	@NotNull private final List<Stripe> stripes;
 	@NotNull private final LinkedList<PoolableObject<T>> waitingForDeallocation = new LinkedList<>();
-	@NotNull private final LinkedList<Condition> objectAvailableConditions = new LinkedList<>();
+	/**
+	 * Claimers waiting for an object, in order of arrival. A claimer stays queued for its whole claim, so it keeps its place in line when woken up without
+	 * getting an object. Guarded by the claim lock.
+	 */
+	@Nullable private Waiter<T> firstWaiter;
+	@Nullable private Waiter<T> lastWaiter;
+	private int waiterCount;
+	/**
+	 * Waiting claimers that accept any object (so not {@link #claimMatching(Predicate, long, TimeUnit)}), guarded by the claim lock.
+	 */
+	private int handOffWaiterCount;
+	/**
+	 * Asynchronous allocations started but not completed yet, already counted as allocated. Guarded by the claim lock.
+	 */
+	private int allocationsInFlight;
+	/**
+	 * After a failed asynchronous allocation, no new ones are started for waiting claimers until this time, doubling the backoff with each consecutive
+	 * failure. The retry is left to the allocation thread, as a failed future completes on the thread that started it. Guarded by the claim lock.
+	 */
+	private long asyncAllocationBackoffUntilNs = System.nanoTime();
+	private int consecutiveAsyncAllocationFailures;
+	@NotNull private final AtomicInteger deallocationsInFlight = new AtomicInteger();
+	/**
+	 * Each thread reuses its own waiter, so waiting for an object doesn't allocate anything.
+	 */
+	@NotNull private final ThreadLocal<Waiter<T>> threadWaiter = ThreadLocal.withInitial(Waiter::new);
+	/**
+	 * Wait times of claims that had to wait, by priority. Guarded by the claim lock.
+	 */
+	@NotNull private final Map<Integer, WaitTimes> waitTimesByPriority = new TreeMap<>();
+	/**
+	 * Claimed objects that are candidates for leak detection. Only maintained if leak detection is enabled.
+	 */
+	@NotNull private final Set<PoolableObject<T>> leakCandidates = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<PoolableObject<T>, Boolean>()));
 	@NotNull private final Condition objectWaitingForDeallocation = deallocateLock.newCondition();
+	/**
+	 * Subscriptions of {@link #asPublisher()}, copied on write (into an unmodifiable list) so notifying them by index doesn't allocate anything.
+	 */
+	@NotNull private volatile List<LeasePublisher.LeaseSubscription<T>> leaseSubscriptions = Collections.emptyList();
 	
 	@NotNull @Getter private final PoolConfig<T> poolConfig;
 	@NotNull @Getter private final Allocator<T> allocator;
+	/**
+	 * The allocator, if it allocates asynchronously.
+	 */
+	@Nullable private final AsyncAllocator<T> asyncAllocator;
+	/**
+	 * Whether the allocator overrides {@link Allocator#allocateBatch(int)}, so a claimer growing the pool may allocate for other waiting claimers too.
+	 */
+	private final boolean batchAllocating;
+	@NotNull private final Clock clock;
+	/**
+	 * Limit expiry-driven invalidations and replacement allocations, see {@link PoolConfig#getMaxChurnPerSecond()}.
+	 */
+	@Nullable private final RateLimiter expiryRateLimiter;
+	@Nullable private final RateLimiter replacementRateLimiter;
+	@Nullable private final CapacityBudget capacityBudget;
+	/**
+	 * Identifies this pool in its {@link PoolEvents}.
+	 */
+	@NotNull private final String eventPoolName;
+	/**
+	 * The period during which claimers are waiting for an object, while recorded as a {@link PoolEvents} event. Guarded by the claim lock.
+	 */
+	@Nullable private Object saturationEvent;
+	private int saturationPeakWaiters;
+	private long saturationRejectedBefore;
+	/**
+	 * Objects created before the last {@link #refresh(double)} have an older generation and are replaced while that refresh is in progress.
+	 */
+	private volatile int refreshGeneration;
+	@Nullable private volatile RefreshProgress refreshProgress;
+	/**
+	 * Guarded by the claim lock, while a refresh is in progress: the refresh's rate, the number of replacements allocated for old objects that are still
+	 * claimed, and the number of old objects retired on release for which no replacement was allocated yet.
+	 */
+	@Nullable private RateLimiter refreshRateLimiter;
+	private int replacementsAhead;
+	private int replacementsOwed;
+	/**
+	 * Guarded by the claim lock, while a refresh is in progress: the asynchronous allocations started before the refresh and not completed yet. They count
+	 * towards the objects to replace, but are not claimed objects to allocate replacements ahead for.
+	 */
+	private int staleAllocationsInFlight;
 	
 	@Nullable private volatile Future<Void> shutdownSequence;
+	/**
+	 * Start out as configured in the {@link PoolConfig}, can be changed with {@link #resize(int, int)}.
+	 */
+	private volatile int corePoolsize;
+	private volatile int maxPoolsize;
+	/**
+	 * The core pool size currently required by the {@link CapacitySchedule}, if any, see {@link #getEffectiveCorePoolsize()}.
+	 */
+	private volatile int scheduledCorePoolsize;
+	/**
+	 * Set when the {@link MemoryPressureMonitor} reports the heap crossing the {@link MemoryPressurePolicy}'s threshold, the trim itself being left to the
+	 * allocation thread. Cleared by that thread once usage has dropped below the threshold again.
+	 */
+	private volatile boolean underMemoryPressure;
+	private volatile boolean memoryPressureTrimPending;
+	@NotNull private final MemoryPressureMonitor.Listener memoryPressureListener = this::memoryPressureDetected;
 	
 	@NotNull private final AtomicInteger currentlyClaimed = new AtomicInteger();
+	@NotNull private final AtomicInteger currentlyAllocated = new AtomicInteger();
+	/**
+	 * Total weight of the objects in the pool, not counting objects waiting for deallocation, see {@link Allocator#weigh(Object)}.
+	 */
+	@NotNull private final AtomicLong currentWeight = new AtomicLong();
+	/**
+	 * Highest number of objects claimed at the same time since the last expiry check, see {@link ExpirationPolicy#beforeExpiryCheck(long, int, int)}.
+	 */
+	@NotNull private final AtomicInteger peakClaimed = new AtomicInteger();
+	/**
+	 * What the pool observed for its {@link SizingProfile}: the highest number of objects claimed at the same time since the pool started, the moving average
+	 * of idle objects (only updated by the allocation thread) and the time spent allocating objects.
+	 */
+	@NotNull private final AtomicInteger profilePeakClaimed = new AtomicInteger();
+	private volatile double typicalIdle;
+	@NotNull private final AtomicLong totalAllocationNs = new AtomicLong();
+	@NotNull private final AtomicLong allocationsTimed = new AtomicLong();
+	/**
+	 * Claimers that are (about to start) waiting for the claim lock's conditions, so a release on a stripe knows whether it needs the claim lock to signal them.
+	 */
+	@NotNull private final AtomicInteger pendingClaimers = new AtomicInteger();
+	@NotNull private final AtomicInteger nextStripeForNewObjects = new AtomicInteger();
 	@NotNull private final AtomicLong totalAllocated = new AtomicLong();
 	@NotNull private final AtomicLong totalClaimed = new AtomicLong();
+	@NotNull private final AtomicLong totalLeaksDetected = new AtomicLong();
+	@NotNull private final AtomicLong totalRejected = new AtomicLong();
 	
+	@SuppressWarnings("unchecked")
 	public GenericObjectPool(final PoolConfig<T> poolConfig, @NotNull final Allocator<T> allocator) {
 		this.poolConfig = poolConfig;
 		this.allocator = allocator;
+		this.asyncAllocator = allocator instanceof AsyncAllocator ? (AsyncAllocator<T>) allocator : null;
+		this.batchAllocating = overridesAllocateBatch(allocator);
+		this.clock = poolConfig.getClock();
+		this.clock.tick();
+		this.corePoolsize = poolConfig.getCorePoolsize();
+		this.maxPoolsize = poolConfig.getMaxPoolsize();
+		this.capacityBudget = poolConfig.getCapacityBudget();
+		this.eventPoolName = allocator.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(this));
+		this.expiryRateLimiter = poolConfig.getMaxChurnPerSecond() > 0 ? new RateLimiter(poolConfig.getMaxChurnPerSecond(), clock) : null;
+		this.replacementRateLimiter = poolConfig.getMaxChurnPerSecond() > 0 ? new RateLimiter(poolConfig.getMaxChurnPerSecond(), clock) : null;
+		this.stripes = new ArrayList<>(poolConfig.getStripes());
+		for (int i = 0; i < poolConfig.getStripes(); i++) {
+			this.stripes.add(new Stripe(poolConfig.getStripes() > 1 ? new ReentrantLock() : claimLock, new AvailableObjects<T>(poolConfig.getSelectionStrategy())));
+		}
+		if (capacityBudget != null) {
+			capacityBudget.register(this);
+		}
+		if (poolConfig.getMemoryPressurePolicy() != null) {
+			MemoryPressureMonitor.getInstance().register(memoryPressureListener, poolConfig.getMemoryPressurePolicy().getUsageThreshold());
+		}
+		warmUpFromSizingProfile();
 		poolConfig.getThreadFactory().newThread(new AutoAllocator()).start();
 		poolConfig.getThreadFactory().newThread(new AutoDeallocator()).start();
 	}
+
+	private static boolean overridesAllocateBatch(@NotNull final Allocator<?> allocator) {
+		try {
+			return allocator.getClass().getMethod("allocateBatch", int.class).getDeclaringClass() != Allocator.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
 	
 	/**
 	 * Delegates to {@link #claim(Timeout)} with unlimited timeout.
@@ -65,95 +244,466 @@ public class GenericObjectPool<T> {
 	}
 	
 	/**
-	 * Delegates to {@link #claim(Timeout)}.
+	 * Delegates to {@link #claim(int, long, TimeUnit)} with the default priority (0).
 	 */
 	@Nullable
 	public PoolableObject<T> claim(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
-		return claim(new Timeout(timeout, timeUnit));
+		return claim(0, timeout, timeUnit);
 	}
 	
+	/**
+	 * Delegates to {@link #claim(int, long, TimeUnit)} with the default priority (0).
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claim(final Timeout timeout) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claim(0, timeout.getDuration(), timeout.getTimeUnit());
+	}
+
+	/**
+	 * Delegates to {@link #claim(int, long, TimeUnit)}.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claim(final int priority, final Timeout timeout) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claim(priority, timeout.getDuration(), timeout.getTimeUnit());
+	}
+
+	/**
+	 * Delegates to {@link #claim(int, Deadline)} with the default priority (0).
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claim(@NotNull final Deadline deadline) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claim(0, deadline);
+	}
+
+	/**
+	 * Delegates to {@link #claim(int, long, TimeUnit)}, with the time left until the deadline. Lets callers pass on the remaining time budget of whatever
+	 * they are doing, rather than starting a new timeout.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claim(final int priority, @NotNull final Deadline deadline) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claimBefore(priority, deadline.getNanoTime());
+	}
+
 	/**
 	 * Will claim available object, create a new one if there is room to grow the pool, or else wait until either become true.
+	 * <p>
+	 * While waiting, released objects are handed directly to the waiting claimer with the highest priority (higher value first, first come first served within
+	 * a priority level), see also {@link PoolConfig#getPriorityAgingInterval()}. For objects that become available otherwise (room freed up by an invalidation,
+	 * for example), claimers compete as usual.
+	 *
+	 * <p>
+	 * The timeout applies to the claim as a whole, with nanosecond precision: a claimer that is woken up but loses the object to another claimer keeps
+	 * waiting only for the time it has left.
+	 *
+	 * @param priority The urgency of this claim compared to other waiting claims, 0 being the default.
 	 *
-	 * @throws IllegalStateException if you try a new claim while the pool is shut down
-	 * @throws InterruptedException  if the pool was waiting and the pool shut down in the mean time
+	 * @throws IllegalStateException   if you try a new claim while the pool is shut down
+	 * @throws InterruptedException    if the pool was waiting and the pool shut down in the mean time
+	 * @throws PoolSaturatedException  if the claim would have to wait, but the maximum number of waiting claimers has been reached
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claim(final int priority, final long timeout, final TimeUnit timeUnit) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		// wrapping arithmetic is fine, as deadlines are only ever compared by their difference with the current time
+		return claimBefore(priority, System.nanoTime() + timeUnit.toNanos(timeout));
+	}
+
+	@Nullable
+	private PoolableObject<T> claimBefore(final int priority, final long deadlineNs) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		final Object claimEvent = PoolEvents.beginClaim();
+		PoolableObject<T> entry = null;
+		try {
+			if (stripes.size() > 1) {
+				entry = claimFromStripes();
+				if (entry != null) {
+					return entry;
+				}
+			}
+			claimLock.lock();
+			try {
+				entry = claimOrCreateOrWaitUntilAvailable(priority, deadlineNs, claimEvent);
+				return entry;
+			} finally {
+				claimLock.unlock();
+			}
+		} finally {
+			PoolEvents.endClaim(claimEvent, eventPoolName, priority, entry != null);
+		}
+	}
+
+	/**
+	 * Delegates to {@link #claimMatching(Predicate, long, TimeUnit)}.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claimMatching(@NotNull final Predicate<PoolableObject<T>> predicate, @NotNull final Deadline deadline) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claimMatching(predicate, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Delegates to {@link #claimMatching(Predicate, long, TimeUnit)}.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claimMatching(@NotNull final Predicate<PoolableObject<T>> predicate, final Timeout timeout) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claimMatching(predicate, timeout.getDuration(), timeout.getTimeUnit());
+	}
+
+	/**
+	 * Claims an already available object matching the predicate, or waits until one becomes available or matches due to time passing.
+	 * <p>
+	 * This method does not allocate new objects, nor are released objects handed to it directly the way {@link #claim(int, Timeout)} does: it waits at the
+	 * default priority and only sees objects that were not handed to another waiting claimer. Keep the predicate fast and side-effect free; it is evaluated while the pool claim lock is held.
 	 */
 	@SuppressWarnings("WeakerAccess")
 	@Nullable
-	public PoolableObject<T> claim(final Timeout timeout) throws InterruptedException, IllegalStateException {
+	public PoolableObject<T> claimMatching(@NotNull final Predicate<PoolableObject<T>> predicate, final long timeout, final TimeUnit timeUnit) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		requireNonNull(predicate, "predicate");
 		claimLock.lock();
 		try {
-			return claimOrCreateOrWaitUntilAvailable(timeout);
+			return claimMatchingOrWaitUntilAvailable(available -> available.pollMatching(predicate), null, System.nanoTime() + timeUnit.toNanos(timeout));
 		} finally {
 			claimLock.unlock();
 		}
 	}
 
 	/**
-	 * Delegates to {@link #claimMatching(Predicate, Timeout)}.
+	 * Delegates to {@link #claimMatchingOrCreate(Predicate, Supplier, long, TimeUnit)}.
 	 */
+	@SuppressWarnings("WeakerAccess")
 	@Nullable
-	public PoolableObject<T> claimMatching(@NotNull final Predicate<PoolableObject<T>> predicate, final long timeout, final TimeUnit timeUnit) throws InterruptedException {
-		return claimMatching(predicate, new Timeout(timeout, timeUnit));
+	public PoolableObject<T> claimMatchingOrCreate(@NotNull final Predicate<PoolableObject<T>> predicate, @NotNull final Supplier<T> factory, final Timeout timeout) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claimMatchingOrCreate(predicate, factory, timeout.getDuration(), timeout.getTimeUnit());
 	}
 
 	/**
-	 * Claims an already available object matching the predicate, or waits until one becomes available or matches due to time passing.
+	 * Like {@link #claimMatching(Predicate, long, TimeUnit)}, but creates a matching object with the given factory if none is available, so one pool can serve
+	 * several flavours of objects (connections to different schemas, for example) without any of them starving.
 	 * <p>
-	 * This method does not allocate new objects. Keep the predicate fast and side-effect free; it is evaluated while the pool claim lock is held.
+	 * A new object is created if the pool has room to grow. If the pool is at its max size, the least recently used available object that doesn't match is
+	 * evicted to make room. Only if all available objects match (but were claimed by someone else meanwhile) or no object is available at all, this waits
+	 * like {@link #claimMatching(Predicate, long, TimeUnit)}. Finding an object to evict scans the available objects with the claim lock held.
+	 * <p>
+	 * Objects created by the factory are pooled like any other and deallocated by the pool's {@link Allocator}. The factory is called with the claim lock held,
+	 * as the pool's own allocator is for synchronous claims; its exceptions are thrown to the claimer.
+	 *
+	 * @param factory Creates an object that matches the predicate.
 	 */
 	@SuppressWarnings("WeakerAccess")
 	@Nullable
-	public PoolableObject<T> claimMatching(@NotNull final Predicate<PoolableObject<T>> predicate, final Timeout timeout) throws InterruptedException, IllegalStateException {
+	public PoolableObject<T> claimMatchingOrCreate(@NotNull final Predicate<PoolableObject<T>> predicate, @NotNull final Supplier<T> factory, final long timeout, final TimeUnit timeUnit)
+			throws InterruptedException, IllegalStateException, PoolSaturatedException {
 		requireNonNull(predicate, "predicate");
+		requireNonNull(factory, "factory");
 		claimLock.lock();
 		try {
-			return claimMatchingOrWaitUntilAvailable(predicate, timeout);
+			return claimMatchingOrWaitUntilAvailable(available -> available.pollMatching(predicate), () -> createClaimedObjectMakingRoom(predicate, factory),
+					System.nanoTime() + timeUnit.toNanos(timeout));
 		} finally {
 			claimLock.unlock();
 		}
 	}
 
-	void releasePoolableObject(final PoolableObject<T> claimedObject) {
+	/**
+	 * Delegates to {@link #claimMatching(String, Object, long, TimeUnit)}.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claimMatching(@NotNull final String attributeKey, @NotNull final Object value, final Timeout timeout) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		return claimMatching(attributeKey, value, timeout.getDuration(), timeout.getTimeUnit());
+	}
+
+	/**
+	 * Like {@link #claimMatching(Predicate, long, TimeUnit)}, but claims an object with the given attribute value (see {@link Allocator#attributesOf(Object)}).
+	 * Available objects are indexed by attribute, so this takes constant time rather than scanning all available objects with the claim lock held.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	@Nullable
+	public PoolableObject<T> claimMatching(@NotNull final String attributeKey, @NotNull final Object value, final long timeout, final TimeUnit timeUnit) throws InterruptedException, IllegalStateException, PoolSaturatedException {
+		requireNonNull(attributeKey, "attributeKey");
+		requireNonNull(value, "value");
+		claimLock.lock();
+		try {
+			return claimMatchingOrWaitUntilAvailable(available -> available.pollWithAttribute(attributeKey, value), null, System.nanoTime() + timeUnit.toNanos(timeout));
+		} finally {
+			claimLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a publisher that hands out objects to subscribers as they signal demand, rather than blocking a thread per claim. See {@link LeasePublisher}.
+	 */
+	@NotNull
+	public LeasePublisher<T> asPublisher() {
+		return new LeasePublisher<>(this);
+	}
+
+	/**
+	 * Claims an available object, or creates one if there is room, without waiting. With an {@link AsyncAllocator} this starts an allocation instead, which
+	 * becomes available later.
+	 *
+	 * @return null if no object could be claimed right now or the pool is shutting down
+	 */
+	@Nullable
+	PoolableObject<T> claimWithoutWaiting() {
 		claimLock.lock();
 		try {
 			if (isShuttingDown()) {
-				invalidatePoolableObject(claimedObject);
-			} else if (claimedObject.getCurrentPoolStatus() == PoolableObject.PoolStatus.CLAIMED) {
+				return null;
+			}
+			final PoolableObject<T> entry = claimOrCreateNewObjectIfSpaceLeft(1);
+			if (entry == null && asyncAllocator != null && allocationsInFlight <= handOffWaiterCount && reserveCapacity(1) == 1) {
+				startAsyncAllocation(asyncAllocator);
+			}
+			return entry;
+		} finally {
+			claimLock.unlock();
+		}
+	}
+
+	synchronized void addLeaseSubscription(@NotNull final LeasePublisher.LeaseSubscription<T> subscription) {
+		final List<LeasePublisher.LeaseSubscription<T>> subscriptions = new ArrayList<>(leaseSubscriptions);
+		subscriptions.add(subscription);
+		leaseSubscriptions = Collections.unmodifiableList(subscriptions);
+	}
+
+	synchronized void removeLeaseSubscription(@NotNull final LeasePublisher.LeaseSubscription<T> subscription) {
+		final List<LeasePublisher.LeaseSubscription<T>> subscriptions = new ArrayList<>(leaseSubscriptions);
+		if (subscriptions.remove(subscription)) {
+			leaseSubscriptions = Collections.unmodifiableList(subscriptions);
+		}
+	}
+
+	/**
+	 * Lets subscriptions with outstanding demand claim objects that may have become available. Skipped while holding the claim lock, so subscribers are
+	 * never called with the lock held; the {@link AutoAllocator} catches up on those.
+	 */
+	private void notifyLeaseSubscriptions() {
+		if (claimLock.isHeldByCurrentThread()) {
+			return;
+		}
+		final List<LeasePublisher.LeaseSubscription<T>> subscriptions = leaseSubscriptions;
+		//noinspection ForLoopReplaceableByForEach
+		for (int i = 0; i < subscriptions.size(); i++) {
+			subscriptions.get(i).run();
+		}
+	}
+
+	void releasePoolableObject(final PoolableObject<T> claimedObject) {
+		final Object releaseEvent = PoolEvents.beginRelease();
+		try {
+			releaseOrRetirePoolableObject(claimedObject);
+		} finally {
+			PoolEvents.endRelease(releaseEvent, eventPoolName);
+		}
+	}
+
+	private void releaseOrRetirePoolableObject(final PoolableObject<T> claimedObject) {
+		if (isShuttingDown()) {
+			invalidatePoolableObject(claimedObject);
+		} else if (claimedObject.getCurrentPoolStatus() == PoolableObject.PoolStatus.CLAIMED && !retireIfAboveMaxPoolsize(claimedObject) && !retireIfStale(claimedObject)) {
+			if (asyncAllocator != null) {
+				deallocateForReuseAsync(asyncAllocator, claimedObject).whenComplete((ignored, error) -> {
+					if (error != null) {
+						log.error("error uninitializing released object, invalidating it...", error);
+						invalidatePoolableObject(claimedObject);
+					} else if (isShuttingDown()) {
+						invalidatePoolableObject(claimedObject);
+					} else {
+						returnReleasedObject(claimedObject);
+					}
+				});
+			} else {
 				allocator.deallocateForReuse(claimedObject.getAllocatedObject());
-				currentlyClaimed.decrementAndGet();
-				claimedObject.resetAvailableTimestamp();
-				claimedObject.setCurrentPoolStatus(PoolableObject.PoolStatus.AVAILABLE);
-				available.addLast(claimedObject);
+				returnReleasedObject(claimedObject);
+			}
+		}
+	}
 
-				signalAllWaitingClaimers();
+	/**
+	 * Retires a released object rather than returning it, if the pool was {@link #resize(int, int) resized} below its current size. Decided under the claim
+	 * lock, so concurrent releases don't retire more objects than needed.
+	 *
+	 * @return whether the object was retired
+	 */
+	private boolean retireIfAboveMaxPoolsize(final PoolableObject<T> claimedObject) {
+		if (getCurrentlyAllocated() <= maxPoolsize) {
+			return false;
+		}
+		claimLock.lock();
+		try {
+			if (getCurrentlyAllocated() > maxPoolsize) {
+				invalidatePoolableObject(claimedObject);
+				return true;
+			}
+			return false;
+		} finally {
+			claimLock.unlock();
+		}
+	}
+
+	/**
+	 * Retires a released object rather than returning it, if it was created before the {@link #refresh(double)} in progress. Its replacement was either
+	 * allocated ahead already, or will be allocated by the refresh right away.
+	 *
+	 * @return whether the object was retired
+	 */
+	private boolean retireIfStale(final PoolableObject<T> claimedObject) {
+		if (refreshProgress == null || claimedObject.getGeneration() == refreshGeneration) {
+			return false;
+		}
+		claimLock.lock();
+		try {
+			if (refreshProgress == null) {
+				return false;
+			}
+			final boolean replacedAhead = replacementsAhead > 0;
+			invalidatePoolableObject(claimedObject); // takes the replacement allocated ahead, if any
+			if (!replacedAhead) {
+				replacementsOwed++;
+			}
+			return true;
+		} finally {
+			claimLock.unlock();
+		}
+	}
+
+	private CompletableFuture<Void> deallocateForReuseAsync(final AsyncAllocator<T> asyncAllocator, final PoolableObject<T> claimedObject) {
+		try {
+			return asyncAllocator.deallocateForReuseAsync(claimedObject.getAllocatedObject());
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+
+	private void returnReleasedObject(final PoolableObject<T> claimedObject) {
+		claimedObject.resetAvailableTimestamp();
+		if (handOffToWaitingClaimer(claimedObject)) {
+			return;
+		}
+		final Stripe stripe = stripes.get(homeStripeIndex());
+		stripe.lock.lock();
+		try {
+			if (!claimedObject.compareAndSetCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED, PoolableObject.PoolStatus.AVAILABLE)) {
+				return; // invalidated in the mean time
+			}
+			stripe.available.add(claimedObject);
+		} finally {
+			stripe.lock.unlock();
+		}
+		currentlyClaimed.decrementAndGet();
+		unregisterClaim(claimedObject);
+		signalWaitingClaimers();
+		notifyLeaseSubscriptions();
+	}
+
+	/**
+	 * Hands a released object directly to the highest priority waiting claimer (the longest waiting one within a priority level), so neither lower priority
+	 * waiters nor claimers arriving in the mean time can snatch it away.
+	 *
+	 * @return false if there was no waiting claimer to hand the object to
+	 */
+	private boolean handOffToWaitingClaimer(final PoolableObject<T> releasedObject) {
+		if (pendingClaimers.get() == 0) {
+			return false;
+		}
+		claimLock.lock();
+		try {
+			final Waiter<T> waiter = highestPriorityWaiterForHandOff();
+			if (waiter == null || releasedObject.getCurrentPoolStatus() != PoolableObject.PoolStatus.CLAIMED) {
+				return false;
 			}
+			currentlyClaimed.decrementAndGet();
+			unregisterClaim(releasedObject);
+			waiter.handedOffObject = releasedObject;
+			waiter.handedOffObjectIsNew = false;
+			waiter.signal();
+			return true;
 		} finally {
 			claimLock.unlock();
 		}
 	}
 
-	void invalidatePoolableObject(final PoolableObject<T> claimedObject) {
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	@Nullable
+	private Waiter<T> highestPriorityWaiterForHandOff() {
+		final long nowMs = monotonicTimeMs();
+		final Timeout agingInterval = poolConfig.getPriorityAgingInterval();
+		Waiter<T> highestPriorityWaiter = null;
+		long highestPriority = Long.MIN_VALUE;
+		for (Waiter<T> waiter = firstWaiter; waiter != null; waiter = waiter.next) {
+			if (waiter.acceptsHandOff && waiter.handedOffObject == null) {
+				final long effectivePriority = waiter.effectivePriority(nowMs, agingInterval);
+				// strictly higher, so the longest waiting claimer wins within a priority level
+				if (highestPriorityWaiter == null || effectivePriority > highestPriority) {
+					highestPriorityWaiter = waiter;
+					highestPriority = effectivePriority;
+				}
+			}
+		}
+		return highestPriorityWaiter;
+	}
+
+	void invalidatePoolableObject(final PoolableObject<T> poolableObject) {
+		if (poolableObject.compareAndSetCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED, PoolableObject.PoolStatus.WAITING_FOR_DEALLOCATION)) {
+			currentlyClaimed.decrementAndGet();
+			unregisterClaim(poolableObject);
+			takeReplacementAheadIfStale(poolableObject);
+		} else if (!removeAvailableObject(poolableObject)) {
+			return; // already invalidated
+		}
+		PoolEvents.invalidated(eventPoolName);
+		recordRetired(poolableObject);
+		currentlyAllocated.decrementAndGet();
+		addObjectForDeallocation(poolableObject);
+		signalWaitingClaimers(); // there is room to grow the pool again
+		notifyLeaseSubscriptions();
+	}
+
+	/**
+	 * A claimed object created before the {@link #refresh(double)} in progress takes one of the replacements allocated ahead for claimed old objects
+	 * when it is retired, so the refresh never allocates more replacements ahead than there are old objects still claimed.
+	 */
+	private void takeReplacementAheadIfStale(final PoolableObject<T> claimedObject) {
+		if (refreshProgress == null || claimedObject.getGeneration() == refreshGeneration) {
+			return;
+		}
 		claimLock.lock();
 		try {
-			if (claimedObject.getCurrentPoolStatus() == PoolableObject.PoolStatus.CLAIMED) {
-				currentlyClaimed.decrementAndGet();
-			} else if (claimedObject.getCurrentPoolStatus() == PoolableObject.PoolStatus.AVAILABLE) {
-				available.remove(claimedObject);
+			if (replacementsAhead > 0) {
+				replacementsAhead--;
 			}
 		} finally {
 			claimLock.unlock();
 		}
+	}
 
-		if (claimedObject.getCurrentPoolStatus().ordinal() < PoolableObject.PoolStatus.WAITING_FOR_DEALLOCATION.ordinal()) {
-			addObjectForDeallocation(claimedObject);
+	private boolean removeAvailableObject(final PoolableObject<T> poolableObject) {
+		for (final Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				if (poolableObject.getCurrentPoolStatus() == PoolableObject.PoolStatus.AVAILABLE && stripe.available.remove(poolableObject)) {
+					poolableObject.setCurrentPoolStatus(PoolableObject.PoolStatus.WAITING_FOR_DEALLOCATION);
+					return true;
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
 		}
+		return false;
 	}
 
 	private void addObjectForDeallocation(final PoolableObject<T> claimedObject) {
 		deallocateLock.lock();
 		try {
 			waitingForDeallocation.add(claimedObject);
+			currentWeight.addAndGet(-claimedObject.getWeight());
 			claimedObject.setCurrentPoolStatus(PoolableObject.PoolStatus.WAITING_FOR_DEALLOCATION);
 			objectWaitingForDeallocation.signal();
 		} finally {
@@ -197,111 +747,764 @@ public class GenericObjectPool<T> {
 	}
 	
 	@Nullable
-	private PoolableObject<T> claimOrCreateOrWaitUntilAvailable(final Timeout timeout) throws InterruptedException, IllegalStateException {
+	private PoolableObject<T> claimOrCreateOrWaitUntilAvailable(final int priority, final long deadlineNs, @Nullable final Object claimEvent) throws InterruptedException, IllegalStateException {
 		PoolableObject<T> entry;
-		/*
-		 *	Try to claim an object or else wait for one to become available and then try again
-		 *	in between one becoming available and trying to claim again, it might have been
-		 *	snatched away by another thread.
-		 */
-		do {
-			if (isShuttingDown()) {
-				throw new IllegalStateException("Pool has been shutdown");
-			}
-			entry = claimOrCreateNewObjectIfSpaceLeft();
-		} while (entry == null && waitForAvailableObjectOrTimeout(timeout));
-		return entry;
-	}
-
+		Waiter<T> waiter = null;
+		pendingClaimers.incrementAndGet();
+		try {
+			/*
+			 *	Take an object that was handed to us, or else try to claim an object or else wait for one to
+			 *	become available and then try again. In between one becoming available and trying to claim
+			 *	again, it might have been snatched away by another thread.
+			 */
+			do {
+				if (waiter != null && waiter.handedOffObject != null && waiter.handedOffObjectIsNew) {
+					PoolEvents.markClaimAllocated(claimEvent);
+				}
+				entry = (waiter != null) ? takeHandedOffObject(waiter) : null;
+				if (entry == null) {
+					if (isShuttingDown()) {
+						throw new IllegalStateException("Pool has been shutdown");
+					}
+					if (waiter != null) {
+						waiter.signalled = false; // about to check the pool, so anything signalled from here on is news
+					}
+					final long allocatedBefore = (claimEvent != null) ? totalAllocated.get() : 0;
+					entry = claimOrCreateNewObjectIfSpaceLeft(waiter == null ? handOffWaiterCount + 1 : handOffWaiterCount);
+					if (claimEvent != null && entry != null && totalAllocated.get() != allocatedBefore) {
+						PoolEvents.markClaimAllocated(claimEvent);
+					}
+					if (entry == null) {
+						if (waiter == null) {
+							waiter = startWaitingOrReject(priority, true);
+						}
+						startAsyncAllocationsForWaiters();
+					}
+				}
+			} while (entry == null && waitForAvailableObjectOrTimeout(waiter, deadlineNs));
+		} finally {
+			stopWaiting(waiter);
+		}
+		return entry;
+	}
+
+	/**
+	 * @param creator Creates a matching object if possible, or null to only claim available objects.
+	 */
 	@Nullable
-	private PoolableObject<T> claimMatchingOrWaitUntilAvailable(final Predicate<PoolableObject<T>> predicate, final Timeout timeout) throws InterruptedException, IllegalStateException {
-		final long deadlineMs = calculateDeadlineMs(timeout);
+	private PoolableObject<T> claimMatchingOrWaitUntilAvailable(final Function<AvailableObjects<T>, PoolableObject<T>> matcher,
+			@Nullable final Supplier<PoolableObject<T>> creator, final long deadlineNs) throws InterruptedException, IllegalStateException {
 		PoolableObject<T> entry;
-		do {
-			if (isShuttingDown()) {
-				throw new IllegalStateException("Pool has been shutdown");
-			}
-			entry = claimAvailableObjectMatching(predicate);
-		} while (entry == null && waitForMatchingObjectOrTimeout(deadlineMs));
+		Waiter<T> waiter = null;
+		pendingClaimers.incrementAndGet();
+		try {
+			do {
+				if (isShuttingDown()) {
+					throw new IllegalStateException("Pool has been shutdown");
+				}
+				if (waiter != null) {
+					waiter.signalled = false;
+				}
+				entry = claimAvailableObjectMatching(matcher);
+				if (entry == null && creator != null) {
+					entry = creator.get();
+				}
+				if (entry == null && waiter == null) {
+					waiter = startWaitingOrReject(0, false);
+				}
+			} while (entry == null && waitForMatchingObjectOrTimeout(waiter, deadlineNs));
+		} finally {
+			stopWaiting(waiter);
+		}
 		return entry;
 	}
-	
+
+	/**
+	 * Must be called with the claim lock held.
+	 *
+	 * @return the claimer's place in the queue of waiting claimers
+	 * @throws PoolSaturatedException if the maximum number of waiting claimers has already been reached
+	 */
+	@NotNull
+	private Waiter<T> startWaitingOrReject(final int priority, final boolean acceptsHandOff) {
+		final Integer maxWaiters = poolConfig.getMaxWaiters();
+		if (maxWaiters != null && waiterCount >= maxWaiters) {
+			totalRejected.incrementAndGet();
+			throw new PoolSaturatedException(maxWaiters);
+		}
+		Waiter<T> waiter = threadWaiter.get();
+		if (waiter.queued) {
+			waiter = new Waiter<>(); // claim from an allocator callback, while this thread is already waiting for another claim
+		}
+		waiter.priority = priority;
+		waiter.acceptsHandOff = acceptsHandOff;
+		waiter.waitingSinceMs = monotonicTimeMs();
+		waiter.queued = true;
+		waiter.signalled = false;
+		waiter.previous = lastWaiter;
+		if (lastWaiter != null) {
+			lastWaiter.next = waiter;
+		} else {
+			firstWaiter = waiter;
+		}
+		lastWaiter = waiter;
+		waiterCount++;
+		if (acceptsHandOff) {
+			handOffWaiterCount++;
+			recordSaturation();
+		}
+		return waiter;
+	}
+
+	/**
+	 * Must be called with the claim lock held, after a claimer that accepts any object started waiting.
+	 */
+	private void recordSaturation() {
+		if (handOffWaiterCount == 1) {
+			saturationEvent = PoolEvents.beginSaturation();
+			saturationPeakWaiters = 0;
+			saturationRejectedBefore = totalRejected.get();
+		}
+		if (saturationEvent != null && handOffWaiterCount > saturationPeakWaiters) {
+			saturationPeakWaiters = handOffWaiterCount;
+		}
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void stopWaiting(@Nullable final Waiter<T> waiter) {
+		if (waiter != null) {
+			if (waiter.previous != null) {
+				waiter.previous.next = waiter.next;
+			} else {
+				firstWaiter = waiter.next;
+			}
+			if (waiter.next != null) {
+				waiter.next.previous = waiter.previous;
+			} else {
+				lastWaiter = waiter.previous;
+			}
+			waiter.previous = null;
+			waiter.next = null;
+			waiter.handedOffObject = null;
+			waiter.queued = false;
+			waiterCount--;
+			if (waiter.acceptsHandOff) {
+				handOffWaiterCount--;
+				if (handOffWaiterCount == 0 && saturationEvent != null) {
+					PoolEvents.endSaturation(saturationEvent, eventPoolName, saturationPeakWaiters, totalRejected.get() - saturationRejectedBefore);
+					saturationEvent = null;
+				}
+			}
+
+			WaitTimes waitTimes = waitTimesByPriority.get(waiter.priority);
+			if (waitTimes == null) {
+				waitTimes = new WaitTimes();
+				waitTimesByPriority.put(waiter.priority, waitTimes);
+			}
+			waitTimes.record(monotonicTimeMs() - waiter.waitingSinceMs);
+		}
+		pendingClaimers.decrementAndGet();
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	@Nullable
+	private PoolableObject<T> takeHandedOffObject(final Waiter<T> waiter) {
+		final PoolableObject<T> claimedObject = waiter.handedOffObject;
+		if (claimedObject != null) {
+			waiter.handedOffObject = null;
+			if (waiter.handedOffObjectIsNew) {
+				registerNewClaim(claimedObject);
+			} else {
+				prepareClaimedObjectForReuse(claimedObject);
+			}
+		}
+		return claimedObject;
+	}
+
+	/**
+	 * Fast path for striped pools: claims from the current thread's own stripe, or steals from another stripe, without taking the claim lock.
+	 */
+	@Nullable
+	private PoolableObject<T> claimFromStripes() {
+		if (isShuttingDown()) {
+			throw new IllegalStateException("Pool has been shutdown");
+		}
+		final int homeStripeIndex = homeStripeIndex();
+		for (int i = 0; i < stripes.size(); i++) {
+			final Stripe stripe = stripes.get((homeStripeIndex + i) % stripes.size());
+			// don't queue up for another thread's stripe, the slow path will visit every stripe anyway
+			if (i == 0) {
+				stripe.lock.lock();
+			} else if (!stripe.lock.tryLock()) {
+				continue;
+			}
+			final PoolableObject<T> claimedObject;
+			try {
+				claimedObject = stripe.pollForClaim();
+			} finally {
+				stripe.lock.unlock();
+			}
+			if (claimedObject != null) {
+				prepareClaimedObjectForReuse(claimedObject);
+				return claimedObject;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param claimersToServe The number of claimers looking for an object right now, including the current one. When the pool has to grow and the allocator
+	 *                        overrides {@link Allocator#allocateBatch(int)}, it creates objects for all of them in one call, if there is room. Otherwise the
+	 *                        claimer only creates its own object, as it holds the claim lock meanwhile.
+	 */
 	@Nullable
-	private PoolableObject<T> claimOrCreateNewObjectIfSpaceLeft() {
-		PoolableObject<T> claimedObject = !available.isEmpty() ? available.removeFirst() : null;
+	private PoolableObject<T> claimOrCreateNewObjectIfSpaceLeft(final int claimersToServe) {
+		PoolableObject<T> claimedObject = pollAvailableObjectForClaim();
 		if (claimedObject != null) {
 			prepareClaimedObjectForReuse(claimedObject);
-		} else if (getCurrentlyAllocated() < poolConfig.getMaxPoolsize()) {
-			claimedObject = new PoolableObject<>(this, allocator.allocate());
+		} else if (asyncAllocator == null) {
+			final int batchSize = reserveCapacity(batchAllocating ? Math.max(1, claimersToServe) : 1);
+			if (batchSize == 0) {
+				return null;
+			}
+			final Iterator<T> allocatedObjects = allocateObjects(batchSize).iterator();
+			try {
+				claimedObject = wrapNewObject(allocatedObjects.next());
+			} catch (RuntimeException e) {
+				addAllocatedObjects(allocatedObjects);
+				throw e;
+			}
 			claimedObject.setCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED);
-			currentlyClaimed.incrementAndGet();
+			currentlyAllocated.incrementAndGet();
 			totalAllocated.incrementAndGet();
-			totalClaimed.incrementAndGet();
+			registerNewClaim(claimedObject);
+			addAllocatedObjects(allocatedObjects);
 		}
 		return claimedObject;
 	}
 
+	private void registerNewClaim(final PoolableObject<T> claimedObject) {
+		recordPeakClaimed(currentlyClaimed.incrementAndGet());
+		totalClaimed.incrementAndGet();
+		registerClaim(claimedObject);
+	}
+
+	/**
+	 * Starts an asynchronous allocation for each waiting claimer that doesn't have one in flight yet, as far as the pool has room to grow. Must be called with
+	 * the claim lock held.
+	 */
+	private void startAsyncAllocationsForWaiters() {
+		if (asyncAllocator != null) {
+			while (allocationsInFlight < handOffWaiterCount && !isShuttingDown() && !isBackingOffAsyncAllocation() && reserveCapacity(1) == 1) {
+				startAsyncAllocation(asyncAllocator);
+			}
+		}
+	}
+
+	private boolean isBackingOffAsyncAllocation() {
+		return consecutiveAsyncAllocationFailures > 0 && System.nanoTime() - asyncAllocationBackoffUntilNs < 0;
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void startAsyncAllocation(final AsyncAllocator<T> asyncAllocator) {
+		startAsyncAllocation(asyncAllocator::allocateAsync);
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void startAsyncAllocation(final Supplier<CompletableFuture<T>> allocator) {
+		currentlyAllocated.incrementAndGet();
+		allocationsInFlight++;
+		final int generation = refreshGeneration;
+		final Object allocationEvent = PoolEvents.beginAllocation();
+		final long startNs = System.nanoTime();
+		CompletableFuture<T> allocation;
+		try {
+			allocation = allocator.get();
+		} catch (RuntimeException e) {
+			allocation = failedFuture(e);
+		}
+		allocation.whenComplete((allocatedObject, error) -> {
+			PoolEvents.endAllocation(allocationEvent, eventPoolName, 1, allocatedObject != null ? 1 : 0, error);
+			if (allocatedObject != null) {
+				recordAllocationLatency(System.nanoTime() - startNs, 1);
+			}
+			completeAsyncAllocation(allocatedObject, error, generation);
+		});
+	}
+
+	/**
+	 * Hands a newly allocated object straight to the waiting claimer with the highest priority, or else makes it available.
+	 *
+	 * @param generation The refresh generation when the allocation started, so an object allocated with the configuration from before a {@link #refresh(double)}
+	 *                   is replaced as well.
+	 */
+	private void completeAsyncAllocation(@Nullable final T allocatedObject, @Nullable final Throwable error, final int generation) {
+		claimLock.lock();
+		try {
+			allocationsInFlight--;
+			final boolean stale = refreshProgress != null && generation != refreshGeneration;
+			if (stale) {
+				staleAllocationsInFlight--;
+			}
+			if (allocatedObject == null) {
+				if (stale) {
+					recordRetired(generation);
+				}
+				currentlyAllocated.decrementAndGet();
+				returnCapacity(1);
+				backOffAsyncAllocation();
+				log.error("Not able to allocate new object! This might be a temporary issue due to external reasons (a server rejecting a connection for example).", error);
+				return; // retried by the allocation thread after the backoff, never from here as this may run on the thread that started the allocation
+			}
+			final PoolableObject<T> poolableObject;
+			try {
+				poolableObject = wrapNewObject(allocatedObject, generation);
+			} catch (RuntimeException e) {
+				if (stale) {
+					recordRetired(generation);
+				}
+				currentlyAllocated.decrementAndGet();
+				backOffAsyncAllocation();
+				log.error("Not able to add newly allocated object to the pool, deallocated it again", e);
+				return; // retried for waiting claimers like a failed allocation
+			}
+			consecutiveAsyncAllocationFailures = 0;
+			totalAllocated.incrementAndGet();
+			if (isShuttingDown()) {
+				poolableObject.setCurrentPoolStatus(PoolableObject.PoolStatus.WAITING_FOR_DEALLOCATION);
+				recordRetired(poolableObject);
+				currentlyAllocated.decrementAndGet();
+				addObjectForDeallocation(poolableObject);
+			} else {
+				final Waiter<T> waiter = highestPriorityWaiterForHandOff();
+				if (waiter != null) {
+					poolableObject.setCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED);
+					waiter.handedOffObject = poolableObject;
+					waiter.handedOffObjectIsNew = true;
+					waiter.signal();
+				} else {
+					addAvailableObject(poolableObject);
+				}
+			}
+			startAsyncAllocationsForWaiters();
+		} finally {
+			claimLock.unlock();
+		}
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void backOffAsyncAllocation() {
+		final long backoffNs = Math.min(MIN_ASYNC_ALLOCATION_BACKOFF_NS << Math.min(consecutiveAsyncAllocationFailures, 20), MAX_ASYNC_ALLOCATION_BACKOFF_NS);
+		consecutiveAsyncAllocationFailures++;
+		asyncAllocationBackoffUntilNs = System.nanoTime() + backoffNs;
+	}
+
+	private static <T> CompletableFuture<T> failedFuture(final Throwable error) {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(error);
+		return future;
+	}
+
+	/**
+	 * Polls the current thread's own stripe first and then the others, blocking on each stripe's lock.
+	 */
+	@Nullable
+	private PoolableObject<T> pollAvailableObjectForClaim() {
+		final int homeStripeIndex = homeStripeIndex();
+		for (int i = 0; i < stripes.size(); i++) {
+			final Stripe stripe = stripes.get((homeStripeIndex + i) % stripes.size());
+			stripe.lock.lock();
+			try {
+				final PoolableObject<T> claimedObject = stripe.pollForClaim();
+				if (claimedObject != null) {
+					return claimedObject;
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return null;
+	}
+
 	@Nullable
-	private PoolableObject<T> claimAvailableObjectMatching(final Predicate<PoolableObject<T>> predicate) {
-		for (Iterator<PoolableObject<T>> iterator = available.iterator(); iterator.hasNext(); ) {
-			final PoolableObject<T> poolableObject = iterator.next();
-			if (predicate.test(poolableObject)) {
-				iterator.remove();
-				prepareClaimedObjectForReuse(poolableObject);
-				return poolableObject;
+	private PoolableObject<T> claimAvailableObjectMatching(final Function<AvailableObjects<T>, PoolableObject<T>> matcher) {
+		for (final Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				final PoolableObject<T> poolableObject = matcher.apply(stripe.available);
+				if (poolableObject != null) {
+					poolableObject.setCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED);
+					prepareClaimedObjectForReuse(poolableObject);
+					return poolableObject;
+				}
+			} finally {
+				stripe.lock.unlock();
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Must be called with the claim lock held.
+	 *
+	 * @return A new object from the factory, claimed, or null if there was no room for it and no object to evict.
+	 */
+	@Nullable
+	private PoolableObject<T> createClaimedObjectMakingRoom(final Predicate<PoolableObject<T>> predicate, final Supplier<T> factory) {
+		if (reserveCapacity(1) == 0) {
+			// only evict for lack of room in this pool, a capacity budget only gets the permit back once the evicted object has been deallocated
+			if (getCurrentlyAllocated() < maxPoolsize || !evictLeastRecentlyUsedObjectNotMatching(predicate) || reserveCapacity(1) == 0) {
+				return null;
+			}
+		}
+		final Object allocationEvent = PoolEvents.beginAllocation();
+		final T object;
+		try {
+			object = requireNonNull(factory.get(), "factory returned null");
+		} catch (RuntimeException e) {
+			PoolEvents.endAllocation(allocationEvent, eventPoolName, 1, 0, e);
+			returnCapacity(1);
+			throw e;
+		}
+		PoolEvents.endAllocation(allocationEvent, eventPoolName, 1, 1, null);
+		final PoolableObject<T> claimedObject = wrapNewObject(object);
+		claimedObject.setCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED);
+		currentlyAllocated.incrementAndGet();
+		totalAllocated.incrementAndGet();
+		registerNewClaim(claimedObject);
+		return claimedObject;
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private boolean evictLeastRecentlyUsedObjectNotMatching(final Predicate<PoolableObject<T>> predicate) {
+		PoolableObject<T> leastRecentlyUsed = null;
+		for (final Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				for (final PoolableObject<T> poolableObject : stripe.available) {
+					if ((leastRecentlyUsed == null || poolableObject.getAllocationStampMs() < leastRecentlyUsed.getAllocationStampMs()) && !predicate.test(poolableObject)) {
+						leastRecentlyUsed = poolableObject;
+					}
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return leastRecentlyUsed != null && retireAvailableObject(leastRecentlyUsed);
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 *
+	 * @return whether the object was still available, and is now on its way to be deallocated
+	 */
+	private boolean retireAvailableObject(final PoolableObject<T> poolableObject) {
+		if (!removeAvailableObject(poolableObject)) {
+			return false;
+		}
+		recordRetired(poolableObject);
+		currentlyAllocated.decrementAndGet();
+		addObjectForDeallocation(poolableObject);
+		return true;
+	}
+
+	/**
+	 * Finishes claiming an object that was already taken out of its stripe (and so marked as claimed).
+	 */
 	private void prepareClaimedObjectForReuse(final PoolableObject<T> claimedObject) {
 		allocator.allocateForReuse(claimedObject.getAllocatedObject());
 		claimedObject.resetAllocationTimestamp();
-		claimedObject.setCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED);
-		currentlyClaimed.incrementAndGet();
+		recordPeakClaimed(currentlyClaimed.incrementAndGet());
 		totalClaimed.incrementAndGet();
+		registerClaim(claimedObject);
+	}
+
+	private void recordPeakClaimed(final int claimed) {
+		if (claimed > peakClaimed.get()) {
+			peakClaimed.accumulateAndGet(claimed, Math::max);
+			if (claimed > profilePeakClaimed.get()) {
+				profilePeakClaimed.accumulateAndGet(claimed, Math::max);
+			}
+		}
+	}
+
+	private void registerClaim(final PoolableObject<T> claimedObject) {
+		if (poolConfig.getLeakDetectionThreshold() != null) {
+			final boolean withStackTrace = ThreadLocalRandom.current().nextDouble() < poolConfig.getLeakDetectionStackTraceSampleRate();
+			claimedObject.setClaimSite(new ClaimSite(Thread.currentThread().getName(), withStackTrace));
+			leakCandidates.add(claimedObject);
+		}
+	}
+
+	private void unregisterClaim(final PoolableObject<T> claimedObject) {
+		if (claimedObject.getClaimSite() != null) {
+			claimedObject.setClaimSite(null);
+			leakCandidates.remove(claimedObject);
+		}
 	}
 	
 	/**
-	 * Adds the current PoolWaitHelper into the waiting list.  The waitingClaimer will wait up until the specified deadline.  If the waitingClaimer is woken up before the specified deadline then true is returned
-	 * otherwise false.  The waitingClaimer will always be removed from the wait list regardless of the outcome.
-	 *
-	 * @param timeout the max timeout to wait for
+	 * Lets the waiting claimer wait up until the specified deadline. If the waiting claimer is woken up (or handed an object) before the deadline, then true
+	 * is returned otherwise false.
 	 *
 	 * @return true if object became available
 	 * @throws InterruptedException the interrupted exception
 	 */
-	private boolean waitForAvailableObjectOrTimeout(final Timeout timeout) throws InterruptedException {
-		return waitForAvailableObjectOrTimeout(timeout.getDuration(), timeout.getTimeUnit());
+	private boolean waitForAvailableObjectOrTimeout(final Waiter<T> waiter, final long deadlineNs) throws InterruptedException {
+		final boolean await = awaitSignal(waiter, deadlineNs);
+		if (waiter.handedOffObject != null) {
+			return true; // no longer in any stripe, so must be taken even when shutting down
+		}
+		if (isShuttingDown()) {
+			throw new InterruptedException("Pool is shutting down");
+		}
+		return await;
 	}
 
-	private boolean waitForAvailableObjectOrTimeout(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
-		final Condition objectAvailability = claimLock.newCondition();
+	/**
+	 * Parks the waiting claimer, with the claim lock released, until it is signalled, the deadline passes or the thread is interrupted. Used instead of a
+	 * {@link Condition}, which allocates a new node for every wait.
+	 */
+	private boolean awaitSignal(final Waiter<T> waiter, final long deadlineNs) throws InterruptedException {
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		claimLock.unlock();
 		try {
-			objectAvailableConditions.add(objectAvailability);
-			final boolean await = objectAvailability.await(timeout, timeUnit);
-			if (isShuttingDown()) {
-				throw new InterruptedException("Pool is shutting down");
+			// compared by difference, so an unlimited timeout that wrapped around can't overflow
+			for (long remainingNs = deadlineNs - System.nanoTime(); !waiter.signalled && remainingNs > 0; remainingNs = deadlineNs - System.nanoTime()) {
+				LockSupport.parkNanos(this, remainingNs);
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
 			}
-			return await;
 		} finally {
-			objectAvailableConditions.remove(objectAvailability);
+			claimLock.lock();
 		}
+		return waiter.signalled;
 	}
 
-	private boolean waitForMatchingObjectOrTimeout(final long deadlineMs) throws InterruptedException {
-		final long remainingMs = deadlineMs - System.currentTimeMillis();
-		if (remainingMs <= 0) {
+	private boolean waitForMatchingObjectOrTimeout(final Waiter<T> waiter, final long deadlineNs) throws InterruptedException {
+		final long remainingNs = deadlineNs - System.nanoTime();
+		if (remainingNs <= 0) {
 			return false;
 		}
-		final long waitMs = Math.min(remainingMs, MATCHING_CLAIM_RECHECK_INTERVAL_MS);
-		return waitForAvailableObjectOrTimeout(waitMs, TimeUnit.MILLISECONDS) || System.currentTimeMillis() < deadlineMs;
+		final long waitNs = Math.min(remainingNs, TimeUnit.MILLISECONDS.toNanos(MATCHING_CLAIM_RECHECK_INTERVAL_MS));
+		return waitForAvailableObjectOrTimeout(waiter, System.nanoTime() + waitNs) || deadlineNs - System.nanoTime() > 0;
+	}
+
+	private static long monotonicTimeMs() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
 	}
 
-	private long calculateDeadlineMs(final Timeout timeout) {
-		final long now = System.currentTimeMillis();
-		final long durationMs = timeout.getDurationMs();
-		return durationMs >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + durationMs;
+	/**
+	 * @return The current time according to the configured {@link Clock}, which is what {@link PoolableObject}'s timestamps are based on.
+	 */
+	long currentTimeMs() {
+		return clock.currentTimeMs();
+	}
+
+	/**
+	 * Changes the core and max pool size of a running pool, keeping its objects. Growing takes effect right away: waiting claimers are woken up to create the
+	 * objects they need and the core pool is filled up. Shrinking retires available objects right away, and claimed objects as they are released, until the
+	 * pool fits its new max size.
+	 *
+	 * @throws IllegalArgumentException if the sizes are invalid, as for {@link PoolConfig}
+	 * @throws IllegalStateException if the pool has been shut down
+	 */
+	public void resize(final int corePoolsize, final int maxPoolsize) {
+		if (maxPoolsize <= 0) {
+			throw new IllegalArgumentException("Pool size should have a max size of at least one");
+		}
+		if (corePoolsize > maxPoolsize) {
+			throw new IllegalArgumentException("Core pool size cannot be bigger than the pool's max size");
+		}
+		claimLock.lock();
+		try {
+			if (isShuttingDown()) {
+				throw new IllegalStateException("Pool has been shutdown");
+			}
+			this.corePoolsize = corePoolsize;
+			this.maxPoolsize = maxPoolsize;
+			retireAvailableObjects(getCurrentlyAllocated() - maxPoolsize);
+			startAsyncAllocationsForWaiters();
+			signalAllWaitingClaimers();
+		} finally {
+			claimLock.unlock();
+		}
+		notifyLeaseSubscriptions();
+	}
+
+	/**
+	 * @return The core pool size, or the one required by the {@link CapacitySchedule} if higher, within the max pool size.
+	 */
+	private int getEffectiveCorePoolsize() {
+		return Math.max(corePoolsize, Math.min(scheduledCorePoolsize, maxPoolsize));
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private int retireAvailableObjects(final int count) {
+		return retireAvailableObjects(count, null);
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 *
+	 * @param beforeDeallocation Called with each retired object before it is handed to the deallocation thread.
+	 */
+	private int retireAvailableObjects(final int count, @Nullable final Consumer<PoolableObject<?>> beforeDeallocation) {
+		int retired = 0;
+		for (final Stripe stripe : stripes) {
+			while (retired < count) {
+				final PoolableObject<T> poolableObject;
+				stripe.lock.lock();
+				try {
+					poolableObject = stripe.available.poll();
+					if (poolableObject != null) {
+						poolableObject.setCurrentPoolStatus(PoolableObject.PoolStatus.WAITING_FOR_DEALLOCATION);
+					}
+				} finally {
+					stripe.lock.unlock();
+				}
+				if (poolableObject == null) {
+					break;
+				}
+				recordRetired(poolableObject);
+				currentlyAllocated.decrementAndGet();
+				if (beforeDeallocation != null) {
+					beforeDeallocation.accept(poolableObject);
+				}
+				addObjectForDeallocation(poolableObject);
+				retired++;
+			}
+		}
+		return retired;
+	}
+
+	/**
+	 * Replaces all objects in the pool, for example after a credential rotation or a backend failover, without leaving claimers waiting for new objects.
+	 * <p>
+	 * Objects are replaced at the given rate by the pool's housekeeping: a replacement is allocated before an available old object is retired, and for old
+	 * objects that are claimed, replacements are allocated ahead and the old object is retired on release. So the number of available objects doesn't drop
+	 * during a refresh, unless the pool is at its max size, in which case an old object is retired right before allocating its replacement.
+	 *
+	 * @param objectsPerSecond The number of objects to replace per second.
+	 * @return The progress of the refresh, which completes once all objects from before the refresh have been retired, including those still being
+	 * allocated when it started.
+	 * @throws IllegalStateException if a refresh is already in progress or the pool is shut down
+	 */
+	@NotNull
+	public RefreshProgress refresh(final double objectsPerSecond) {
+		if (objectsPerSecond <= 0) {
+			throw new IllegalArgumentException("Refresh rate should be positive");
+		}
+		claimLock.lock();
+		try {
+			if (isShuttingDown()) {
+				throw new IllegalStateException("Pool has been shutdown");
+			}
+			if (refreshProgress != null) {
+				throw new IllegalStateException("A refresh is already in progress: " + refreshProgress);
+			}
+			final RefreshProgress progress = new RefreshProgress(getCurrentlyAllocated());
+			if (!progress.isDone()) {
+				refreshRateLimiter = new RateLimiter(objectsPerSecond, clock);
+				replacementsAhead = 0;
+				replacementsOwed = 0;
+				staleAllocationsInFlight = allocationsInFlight;
+				refreshGeneration++;
+				refreshProgress = progress;
+			}
+			return progress;
+		} finally {
+			claimLock.unlock();
+		}
+	}
+
+	/**
+	 * Counts an object leaving the pool towards the refresh in progress, if it is an old object.
+	 */
+	private void recordRetired(final PoolableObject<T> poolableObject) {
+		recordRetired(poolableObject.getGeneration());
+	}
+
+	private void recordRetired(final int generation) {
+		final RefreshProgress progress = refreshProgress;
+		if (progress != null && generation != refreshGeneration) {
+			progress.objectReplaced();
+		}
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 *
+	 * @return whether an old object was replaced, or a replacement was allocated ahead for a claimed old object
+	 */
+	private boolean replaceOneStaleObject(final RefreshProgress progress) {
+		final PoolableObject<T> staleObject = findStaleAvailableObject();
+		if (staleObject != null) {
+			final boolean allocatedAhead = reserveCapacity(1) == 1;
+			if (allocatedAhead) {
+				allocateAvailableObjects(1);
+			}
+			if (retireAvailableObject(staleObject) && !allocatedAhead && reserveCapacity(1) == 1) {
+				allocateAvailableObjects(1);
+			}
+			return true;
+		}
+		final int staleClaimed = progress.getObjectsToReplace() - progress.getObjectsReplaced() - staleAllocationsInFlight;
+		if (staleClaimed > replacementsAhead && reserveCapacity(1) == 1) {
+			allocateAvailableObjects(1);
+			replacementsAhead++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	@Nullable
+	private PoolableObject<T> findStaleAvailableObject() {
+		for (final Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				for (final PoolableObject<T> poolableObject : stripe.available) {
+					if (poolableObject.getGeneration() != refreshGeneration) {
+						return poolableObject;
+					}
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Evicts an idle object on behalf of another pool sharing the same {@link CapacityBudget}, if this pool is above its core pool size.
+	 */
+	boolean evictIdleObject(@NotNull final Consumer<PoolableObject<?>> beforeDeallocation) {
+		claimLock.lock();
+		try {
+			return !isShuttingDown() && getCurrentlyAllocated() > getEffectiveCorePoolsize() && retireAvailableObjects(1, beforeDeallocation) == 1;
+		} finally {
+			claimLock.unlock();
+		}
 	}
 
 	/**
@@ -317,10 +1520,18 @@ public class GenericObjectPool<T> {
 		return shutdownSequence;
 	}
 	
-	private boolean isShuttingDown() {
+	boolean isShuttingDown() {
 		return shutdownSequence != null;
 	}
 
+	/**
+	 * @return The name identifying this pool in its {@link PoolEvents}.
+	 */
+	@NotNull
+	String getEventPoolName() {
+		return eventPoolName;
+	}
+
 	/**
 	 * Gets the allocation size.
 	 *
@@ -328,7 +1539,7 @@ public class GenericObjectPool<T> {
 	 */
 	@SuppressWarnings("WeakerAccess")
 	public int getCurrentlyAllocated() {
-		return available.size() + currentlyClaimed.get();
+		return currentlyAllocated.get();
 	}
 
 	/**
@@ -340,25 +1551,71 @@ public class GenericObjectPool<T> {
 		try {
 			return new PoolMetrics(
 					currentlyClaimed.get(),
-					objectAvailableConditions.size(),
+					waiterCount,
 					getCurrentlyAllocated(),
-					poolConfig.getCorePoolsize(),
-					poolConfig.getMaxPoolsize(),
+					getEffectiveCorePoolsize(),
+					maxPoolsize,
+					currentWeight.get(),
+					poolConfig.getMaxPoolWeight(),
 					totalAllocated.get(),
-					totalClaimed.get());
+					totalClaimed.get(),
+					totalLeaksDetected.get(),
+					totalRejected.get(),
+					getWaitTimeMetricsByPriority());
 		} finally {
 			claimLock.unlock();
 		}
 	}
 
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	@NotNull
+	private Map<Integer, WaitTimeMetrics> getWaitTimeMetricsByPriority() {
+		final Map<Integer, WaitTimeMetrics> waitTimeMetricsByPriority = new TreeMap<>();
+		for (final Map.Entry<Integer, WaitTimes> waitTimes : waitTimesByPriority.entrySet()) {
+			final WaitTimes value = waitTimes.getValue();
+			waitTimeMetricsByPriority.put(waitTimes.getKey(), new WaitTimeMetrics(value.waitCount, value.totalWaitMs, value.maxWaitMs));
+		}
+		return Collections.unmodifiableMap(waitTimeMetricsByPriority);
+	}
+
 	private void deallocate(final PoolableObject<T> invalidatedObject) {
-		try {
-			allocator.deallocate(invalidatedObject.getAllocatedObject());
-		} catch (Exception e) {
-			log.error("error deallocating object already removed from the pool, ignoring it from now on...", e);
+		final Object deallocationEvent = PoolEvents.beginDeallocation();
+		if (asyncAllocator != null) {
+			deallocationsInFlight.incrementAndGet();
+			CompletableFuture<Void> deallocation;
+			try {
+				deallocation = asyncAllocator.deallocateAsync(invalidatedObject.getAllocatedObject());
+			} catch (RuntimeException e) {
+				deallocation = failedFuture(e);
+			}
+			deallocation.whenComplete((ignored, error) -> {
+				PoolEvents.endDeallocation(deallocationEvent, eventPoolName, error);
+				completeDeallocation(invalidatedObject, error);
+				deallocationsInFlight.decrementAndGet();
+			});
+		} else {
+			Exception error = null;
+			try {
+				allocator.deallocate(invalidatedObject.getAllocatedObject());
+			} catch (Exception e) {
+				error = e;
+			}
+			PoolEvents.endDeallocation(deallocationEvent, eventPoolName, error);
+			completeDeallocation(invalidatedObject, error);
+		}
+	}
+
+	private void completeDeallocation(final PoolableObject<T> invalidatedObject, @Nullable final Throwable error) {
+		if (error != null) {
+			log.error("error deallocating object already removed from the pool, ignoring it from now on...", error);
 		}
 		invalidatedObject.setCurrentPoolStatus(PoolableObject.PoolStatus.DEALLOCATED);
 		invalidatedObject.dereferenceObject();
+		if (capacityBudget != null) {
+			capacityBudget.release(invalidatedObject);
+		}
 	}
 
 	private void scheduleDeallocations() {
@@ -366,7 +1623,12 @@ public class GenericObjectPool<T> {
 		if (expirationPolicy == ExpirationPolicy.NeverExpirePolicy.getInstance()) {
 			return;
 		}
-		int objectsInvalidated = invalidateExpiredObjects(getExpiredObjects(expirationPolicy));
+		expirationPolicy.beforeExpiryCheck(clock.currentTimeMs(), peakClaimed.getAndSet(currentlyClaimed.get()), getCurrentlyAllocated());
+		final Object expirySweepEvent = PoolEvents.beginExpirySweep();
+		final List<PoolableObject<T>> expiredObjects = new ArrayList<>();
+		final int objectsScanned = collectExpiredObjects(expirationPolicy, expiredObjects);
+		int objectsInvalidated = invalidateExpiredObjects(expiredObjects);
+		PoolEvents.endExpirySweep(expirySweepEvent, eventPoolName, objectsScanned, expiredObjects.size(), objectsInvalidated);
         if (objectsInvalidated > 0) {
 			log.trace("{} objects invalidated as per expiration policy!", objectsInvalidated);
         }
@@ -377,34 +1639,97 @@ public class GenericObjectPool<T> {
 		claimLock.lock();
 		try {
 			for (final PoolableObject<T> poolableObject : expiredObjects) {
+				if (expiryRateLimiter != null && !expiryRateLimiter.tryAcquire()) {
+					break; // still available, so will be found expired again on a next pass
+				}
 				poolableObject.invalidate();
 				invalidatedObjects++;
 			}
 		} finally {
 			claimLock.unlock();
 		}
-		return invalidatedObjects;
+		return invalidatedObjects;
+	}
+
+	/**
+	 * Reports objects claimed for longer than the leak detection threshold (once per claim) and optionally reclaims them.
+	 */
+	private void detectLeaks() {
+		final Timeout leakDetectionThreshold = poolConfig.getLeakDetectionThreshold();
+		if (leakDetectionThreshold == null) {
+			return;
+		}
+		for (final PoolableObject<T> leakedObject : getLeakedObjects(leakDetectionThreshold)) {
+			final ClaimSite claimSite = leakedObject.getClaimSite();
+			log.warn("Possible leak detected: object has been claimed for {}ms without being released or invalidated: {}", leakedObject.allocationAgeMs(), leakedObject, claimSite);
+			if (poolConfig.isReclaimLeakedObjects()) {
+				reclaimLeakedObject(leakedObject);
+			}
+		}
+	}
+
+	private List<PoolableObject<T>> getLeakedObjects(final Timeout leakDetectionThreshold) {
+		final List<PoolableObject<T>> leakedObjects = new ArrayList<>();
+		synchronized (leakCandidates) {
+			for (Iterator<PoolableObject<T>> iterator = leakCandidates.iterator(); iterator.hasNext(); ) {
+				final PoolableObject<T> poolableObject = iterator.next();
+				if (poolableObject.allocationAgeMs() >= leakDetectionThreshold.getDurationMs()) {
+					iterator.remove(); // report only once per claim
+					leakedObjects.add(poolableObject);
+					totalLeaksDetected.incrementAndGet();
+				}
+			}
+		}
+		return leakedObjects;
+	}
+
+	private void reclaimLeakedObject(final PoolableObject<T> leakedObject) {
+		claimLock.lock();
+		try {
+			if (leakedObject.getCurrentPoolStatus() == PoolableObject.PoolStatus.CLAIMED && !isShuttingDown()) {
+				invalidatePoolableObject(leakedObject);
+				if (reserveCapacity(1) == 1) {
+					allocateAvailableObjects(1);
+				}
+			}
+		} catch (Exception e) {
+			log.error("Not able to allocate a replacement for a reclaimed leaked object, a claimer will try again later", e);
+		} finally {
+			claimLock.unlock();
+		}
 	}
 
-	private List<PoolableObject<T>> getExpiredObjects(ExpirationPolicy<T> expirationPolicy){
-		List<PoolableObject<T>> expiredObjects = new ArrayList<>();
+	/**
+	 * @return The number of available objects checked.
+	 */
+	private int collectExpiredObjects(ExpirationPolicy<T> expirationPolicy, List<PoolableObject<T>> expiredObjects){
+		int objectsScanned = 0;
 		claimLock.lock();
 		try {
-			for (final PoolableObject<T> poolableObject : available) {
-				if (expirationPolicy.hasExpired(poolableObject)) {
-					expiredObjects.add(poolableObject);
+			for (final Stripe stripe : stripes) {
+				stripe.lock.lock();
+				try {
+					for (final PoolableObject<T> poolableObject : stripe.available) {
+						objectsScanned++;
+						if (expirationPolicy.hasExpired(poolableObject)) {
+							expiredObjects.add(poolableObject);
+						}
+					}
+				} finally {
+					stripe.lock.unlock();
 				}
 			}
 		} finally {
 			claimLock.unlock();
 		}
-		return expiredObjects;
+		return objectsScanned;
 	}
 
 	/**
 	 * <ol>
 	 *     <li>Automatically plan deallocation for expired objects</li>
 	 *     <li>Automatically deallocates one object every loop</li>
+	 *     <li>Reports (and optionally reclaims) leaked objects, if leak detection is enabled</li>
 	 * </ol>
 	 */
 	private class AutoDeallocator implements Runnable {
@@ -420,6 +1745,8 @@ public class GenericObjectPool<T> {
 		}
 
 		private void deallocateOneOrPlanDeallocations() {
+			clock.tick();
+			detectLeaks();
 			final boolean shouldScheduleDeallocations = poolConfig.getExpirationPolicy() != ExpirationPolicy.NeverExpirePolicy.getInstance();
 			PoolableObject<T> poolableObject = shouldScheduleDeallocations ? getObjectForDeallocation() : waitForObjectForDeallocation();
 			final boolean deallocatedAnObject = poolableObject != null;
@@ -437,50 +1764,286 @@ public class GenericObjectPool<T> {
 	 * <ol>
 	 * <li>Automatically allocates objects until core pool size is met. Initially fills up the pool and when object are
 	 * deallocated.</li>
+	 * <li>Delivers objects to {@link LeasePublisher} subscriptions with outstanding demand, and completes them on shutdown.</li>
 	 * </ol>
 	 */
 	private class AutoAllocator implements Runnable {
 
+		private boolean corePoolFilled;
+		private long nextCapacityScheduleCheckNs = System.nanoTime();
+		private long nextMemoryPressureCheckNs = System.nanoTime();
+		private long lastIdleSampleMs = clock.currentTimeMs();
+		private long nextSizingProfileSaveMs = poolConfig.getSizingProfileSaveInterval() != null
+				? clock.currentTimeMs() + poolConfig.getSizingProfileSaveInterval().getDurationMs()
+				: Long.MAX_VALUE;
+
 		@Override
 		@SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH", justification = "False positive")
 		public void run() {
 			//noinspection ConstantConditions
 			while (shutdownSequence == null || !shutdownSequence.isDone() || !waitingForDeallocation.isEmpty()) {
+				clock.tick();
+				applyCapacitySchedule();
+				handleMemoryPressure();
+				trimToMaxPoolWeight();
 				allocatedCorePool();
+				replaceStaleObjects();
+				claimBudgetCapacityForWaiters();
+				retryAsyncAllocationsForWaiters();
+				notifyLeaseSubscriptions();
+				updateSizingProfile();
 				SleepUtil.sleep(5);
 			}
+			notifyLeaseSubscriptions(); // completes remaining subscriptions
+			if (capacityBudget != null) {
+				capacityBudget.deregister(GenericObjectPool.this);
+			}
 			log.debug("AutoAllocator finished");
 		}
 
+		/**
+		 * Picks up the core pool size the {@link CapacitySchedule} requires now. When it drops, idle objects above the new core pool size are retired.
+		 */
+		private void applyCapacitySchedule() {
+			final CapacitySchedule capacitySchedule = poolConfig.getCapacitySchedule();
+			if (capacitySchedule == null || System.nanoTime() - nextCapacityScheduleCheckNs < 0) {
+				return;
+			}
+			nextCapacityScheduleCheckNs = System.nanoTime() + CAPACITY_SCHEDULE_CHECK_INTERVAL_NS;
+			final int scheduled = capacitySchedule.getScheduledCorePoolsize();
+			if (scheduled == scheduledCorePoolsize) {
+				return;
+			}
+			claimLock.lock();
+			try {
+				final boolean scalingDown = scheduled < scheduledCorePoolsize;
+				scheduledCorePoolsize = scheduled;
+				if (scalingDown && !isShuttingDown()) {
+					retireAvailableObjects(getCurrentlyAllocated() - getEffectiveCorePoolsize());
+				}
+			} finally {
+				claimLock.unlock();
+			}
+		}
+
+		/**
+		 * Trims available objects down to the {@link MemoryPressurePolicy}'s floor when memory pressure was reported, and once a second checks whether the heap
+		 * usage after the last garbage collection has dropped below the threshold, after which the pool may grow again.
+		 */
+		private void handleMemoryPressure() {
+			final MemoryPressurePolicy memoryPressurePolicy = poolConfig.getMemoryPressurePolicy();
+			if (memoryPressurePolicy == null || !underMemoryPressure) {
+				return;
+			}
+			if (memoryPressureTrimPending) {
+				memoryPressureTrimPending = false;
+				nextMemoryPressureCheckNs = System.nanoTime() + MEMORY_PRESSURE_CHECK_INTERVAL_NS;
+				trimForMemoryPressure(memoryPressurePolicy.getTrimPreference());
+			} else if (System.nanoTime() - nextMemoryPressureCheckNs >= 0) {
+				nextMemoryPressureCheckNs = System.nanoTime() + MEMORY_PRESSURE_CHECK_INTERVAL_NS;
+				if (!MemoryPressureMonitor.getInstance().isAboveThreshold(memoryPressurePolicy.getUsageThreshold())) {
+					log.info("Memory pressure eased, pool may grow again");
+					claimLock.lock();
+					try {
+						underMemoryPressure = false;
+						startAsyncAllocationsForWaiters();
+						signalAllWaitingClaimers();
+					} finally {
+						claimLock.unlock();
+					}
+				}
+			}
+		}
+
+		private void trimForMemoryPressure(@NotNull final MemoryPressurePolicy.TrimPreference trimPreference) {
+			claimLock.lock();
+			try {
+				while (getCurrentlyAllocated() > getMemoryPressureFloor() && !isShuttingDown()) {
+					final PoolableObject<T> victim = trimPreference == MemoryPressurePolicy.TrimPreference.LARGEST
+							? findHeaviestAvailableObject()
+							: findOldestAvailableObject();
+					if (victim == null || !retireAvailableObject(victim)) {
+						return;
+					}
+				}
+			} finally {
+				claimLock.unlock();
+			}
+		}
+
+		/**
+		 * Evicts available objects, heaviest first, while the pool weighs more than {@link PoolConfig#getMaxPoolWeight()}.
+		 */
+		private void trimToMaxPoolWeight() {
+			final long maxPoolWeight = poolConfig.getMaxPoolWeight();
+			if (maxPoolWeight == 0 || currentWeight.get() <= maxPoolWeight) {
+				return;
+			}
+			claimLock.lock();
+			try {
+				while (currentWeight.get() > maxPoolWeight && !isShuttingDown()) {
+					final PoolableObject<T> heaviest = findHeaviestAvailableObject();
+					if (heaviest == null || !retireAvailableObject(heaviest)) {
+						return;
+					}
+				}
+			} finally {
+				claimLock.unlock();
+			}
+		}
+
 		private void allocatedCorePool() {
 			claimLock.lock();
 			try {
-				while (getCurrentlyAllocated() < poolConfig.getCorePoolsize() && !isShuttingDown()) {
-					available.addLast(new PoolableObject<>(GenericObjectPool.this, allocator.allocate()));
-					totalAllocated.incrementAndGet();
+				while (getCurrentlyAllocated() < getEffectiveCorePoolsize() && !isShuttingDown()) {
+					int missing = getEffectiveCorePoolsize() - getCurrentlyAllocated();
+					if (corePoolFilled && replacementRateLimiter != null) {
+						missing = acquireReplacementPermits(missing);
+					}
+					missing = reserveCapacity(missing);
+					if (missing == 0) {
+						return;
+					}
+					allocateAvailableObjects(missing);
 				}
+				corePoolFilled = true;
 			} catch (Exception e) {
 				log.error("Not able to allocate new object! This might be a temporary issue due to external reasons (a server rejecting a connection for example).", e);
 			} finally {
 				claimLock.unlock();
 			}
 		}
+
+		/**
+		 * Moves the {@link #refresh(double)} in progress along: allocates replacements owed for old objects retired on release, and replaces old objects as
+		 * the refresh rate allows.
+		 */
+		private void replaceStaleObjects() {
+			final RefreshProgress progress = refreshProgress;
+			if (progress == null) {
+				return;
+			}
+			claimLock.lock();
+			try {
+				if (progress.isDone() || isShuttingDown()) {
+					refreshProgress = null;
+					refreshRateLimiter = null;
+					return;
+				}
+				while (replacementsOwed > 0 && reserveCapacity(1) == 1) {
+					replacementsOwed--;
+					allocateAvailableObjects(1);
+				}
+				//noinspection ConstantConditions
+				while (refreshRateLimiter.tryAcquire() && replaceOneStaleObject(progress)) {
+					// next
+				}
+			} catch (Exception e) {
+				log.error("Not able to allocate a replacement object during refresh, will try again", e);
+			} finally {
+				claimLock.unlock();
+			}
+		}
+
+		/**
+		 * When claimers are waiting on an exhausted {@link CapacityBudget}, evicts idle objects from other pools and lets the claimers try again once
+		 * capacity is available. Done here rather than by the claimers themselves, as they hold this pool's claim lock and must not take another pool's.
+		 * <p>
+		 * An evicted object's permit only comes back once it has been deallocated, so evictions still in flight count towards the waiters' needs, rather than
+		 * evicting another object on every pass until then.
+		 */
+		private void claimBudgetCapacityForWaiters() {
+			if (capacityBudget == null) {
+				return;
+			}
+			final int waitersNeedingCapacity = countWaitersNeedingCapacity();
+			if (waitersNeedingCapacity == 0) {
+				return;
+			}
+			if (capacityBudget.getAvailablePermits() == 0) {
+				int evictionsNeeded = waitersNeedingCapacity - capacityBudget.getEvictionsInFlightFor(GenericObjectPool.this);
+				while (evictionsNeeded-- > 0 && capacityBudget.evictIdleObjectFor(GenericObjectPool.this)) {
+					// next
+				}
+			}
+			if (capacityBudget.getAvailablePermits() > 0) {
+				claimLock.lock();
+				try {
+					startAsyncAllocationsForWaiters();
+					signalAllWaitingClaimers();
+				} finally {
+					claimLock.unlock();
+				}
+			}
+		}
+
+		/**
+		 * Starts the asynchronous allocations for waiting claimers that were held back after a failed allocation, once the backoff has passed.
+		 */
+		private void retryAsyncAllocationsForWaiters() {
+			if (asyncAllocator == null) {
+				return;
+			}
+			claimLock.lock();
+			try {
+				if (consecutiveAsyncAllocationFailures > 0 && !isBackingOffAsyncAllocation()) {
+					startAsyncAllocationsForWaiters();
+				}
+			} finally {
+				claimLock.unlock();
+			}
+		}
+
+		private int countWaitersNeedingCapacity() {
+			claimLock.lock();
+			try {
+				return isShuttingDown() ? 0 : Math.max(0, Math.min(handOffWaiterCount - allocationsInFlight, maxPoolsize - getCurrentlyAllocated()));
+			} finally {
+				claimLock.unlock();
+			}
+		}
+
+		private void updateSizingProfile() {
+			final long nowMs = clock.currentTimeMs();
+			if (nowMs > lastIdleSampleMs && !isShuttingDown()) {
+				final double weight = 1 - Math.exp(-(nowMs - lastIdleSampleMs) / TYPICAL_IDLE_WINDOW_MS);
+				typicalIdle += weight * (Math.max(0, getCurrentlyAllocated() - currentlyClaimed.get()) - typicalIdle);
+				lastIdleSampleMs = nowMs;
+			}
+			if (nowMs >= nextSizingProfileSaveMs && !isShuttingDown()) {
+				//noinspection ConstantConditions
+				nextSizingProfileSaveMs = nowMs + poolConfig.getSizingProfileSaveInterval().getDurationMs();
+				saveSizingProfile();
+			}
+		}
+
+		private int acquireReplacementPermits(final int wanted) {
+			int acquired = 0;
+			while (acquired < wanted && replacementRateLimiter.tryAcquire()) {
+				acquired++;
+			}
+			return acquired;
+		}
 	}
 	
 	private class ShutdownSequence implements Runnable {
 		
 		@Override
 		public void run() {
+			saveSizingProfile();
 			initiateShutdown();
 			waitUntilShutDown();
+			if (poolConfig.getMemoryPressurePolicy() != null) {
+				MemoryPressureMonitor.getInstance().deregister(memoryPressureListener);
+			}
 			log.info("Simple Object Pool shutdown complete");
 		}
 		
 		private void initiateShutdown() {
 			claimLock.lock();
 			try {
-				while (!available.isEmpty()) {
-					available.remove().invalidate();
+				for (final PoolableObject<T> availableObject : getAvailableObjects()) {
+					availableObject.invalidate();
 				}
 				signalAllWaitingClaimers();
 			} finally {
@@ -491,17 +2054,320 @@ public class GenericObjectPool<T> {
 		
 		private void waitUntilShutDown() {
 			while (currentlyClaimed.get() > 0 ||
-					objectAvailableConditions.size() > 0 ||
-					available.size() > 0 ||
-					waitingForDeallocation.size() > 0) {
+					waiterCount > 0 ||
+					currentlyAllocated.get() > 0 ||
+					waitingForDeallocation.size() > 0 ||
+					deallocationsInFlight.get() > 0) {
 				SleepUtil.sleep(10);
 			}
 		}
 	}
 
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void allocateAvailableObjects(final int count) {
+		if (asyncAllocator != null) {
+			for (int i = 0; i < count; i++) {
+				startAsyncAllocation(asyncAllocator);
+			}
+			return;
+		}
+		addAllocatedObjects(allocateObjects(count).iterator());
+	}
+
+	/**
+	 * Creates up to {@code count} objects, at least one, using a single {@link Allocator#allocateBatch(int)} call when more than one is needed. Surplus objects
+	 * an allocator returns beyond {@code count} are deallocated right away, so the pool never exceeds its max size. Capacity reserved for objects that weren't
+	 * created is returned.
+	 */
+	private List<T> allocateObjects(final int count) {
+		final Object allocationEvent = PoolEvents.beginAllocation();
+		final long startNs = System.nanoTime();
+		final List<T> objects;
+		try {
+			objects = (count == 1) ? Collections.singletonList(allocator.allocate()) : allocator.allocateBatch(count);
+			recordAllocationLatency(System.nanoTime() - startNs, objects.size());
+		} catch (RuntimeException e) {
+			PoolEvents.endAllocation(allocationEvent, eventPoolName, count, 0, e);
+			returnCapacity(count);
+			throw e;
+		}
+		PoolEvents.endAllocation(allocationEvent, eventPoolName, count, Math.min(count, objects.size()), null);
+		if (objects.isEmpty()) {
+			returnCapacity(count);
+			throw new IllegalStateException("Allocator returned no objects for a batch of " + count);
+		}
+		for (final T surplus : objects.subList(Math.min(count, objects.size()), objects.size())) {
+			allocator.deallocate(surplus);
+		}
+		returnCapacity(count - Math.min(count, objects.size()));
+		return objects.subList(0, Math.min(count, objects.size()));
+	}
+
+	private void recordAllocationLatency(final long elapsedNs, final int objectsAllocated) {
+		if (objectsAllocated > 0) {
+			totalAllocationNs.addAndGet(elapsedNs);
+			allocationsTimed.addAndGet(objectsAllocated);
+		}
+	}
+
+	/**
+	 * Pre-warms the pool to the working size in the saved {@link SizingProfile}, if any. The objects are allocated in parallel: asynchronous allocators are
+	 * simply asked for all of them at once, other allocators are called from enough threads to be done in about a second (judging by the allocation latency in
+	 * the profile), up to {@value #MAX_WARM_UP_THREADS}. Claimers that come in meanwhile are handed the objects as they are created.
+	 */
+	private void warmUpFromSizingProfile() {
+		final Path sizingProfileFile = poolConfig.getSizingProfileFile();
+		final SizingProfile profile = sizingProfileFile != null ? SizingProfile.load(sizingProfileFile) : null;
+		if (profile == null) {
+			return;
+		}
+		typicalIdle = profile.getTypicalIdle();
+		claimLock.lock();
+		try {
+			final int missing = reserveCapacity(Math.min(profile.getWorkingSize(), maxPoolsize) - getCurrentlyAllocated());
+			if (missing <= 0) {
+				return;
+			}
+			log.debug("pre-warming pool with {} objects as per {}", missing, profile);
+			if (asyncAllocator != null) {
+				allocateAvailableObjects(missing);
+				return;
+			}
+			final long warmUpNs = missing * profile.getAllocationLatencyNs();
+			final long threadsForOneSecond = warmUpNs > 0 ? 1 + (warmUpNs - 1) / TimeUnit.SECONDS.toNanos(1) : MAX_WARM_UP_THREADS;
+			final int threads = (int) Math.min(threadsForOneSecond, Math.min(missing, MAX_WARM_UP_THREADS));
+			final ExecutorService warmUpExecutor = Executors.newFixedThreadPool(threads, poolConfig.getThreadFactory());
+			for (int i = 0; i < missing; i++) {
+				startAsyncAllocation(() -> CompletableFuture.supplyAsync(allocator::allocate, warmUpExecutor));
+			}
+			warmUpExecutor.shutdown();
+		} finally {
+			claimLock.unlock();
+		}
+	}
+
+	/**
+	 * @return The working size this pool observed so far, as saved to {@link PoolConfig#getSizingProfileFile()}.
+	 */
+	@NotNull
+	public SizingProfile getSizingProfile() {
+		final long timed = allocationsTimed.get();
+		return new SizingProfile(profilePeakClaimed.get(), (int) Math.round(typicalIdle), timed > 0 ? totalAllocationNs.get() / timed : 0);
+	}
+
+	private void saveSizingProfile() {
+		final Path sizingProfileFile = poolConfig.getSizingProfileFile();
+		if (sizingProfileFile != null) {
+			getSizingProfile().save(sizingProfileFile);
+		}
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 *
+	 * @return How many of the wanted objects may be allocated right now, within the max pool size (or the {@link MemoryPressurePolicy}'s floor while under
+	 * memory pressure), the max pool weight and the {@link CapacityBudget} (if any). Permits taken from
+	 * the budget are held by the objects until deallocated, or must be given back with {@link #returnCapacity(int)} if not allocated after all.
+	 */
+	private int reserveCapacity(final int wanted) {
+		int room = Math.min(wanted, (underMemoryPressure ? getMemoryPressureFloor() : maxPoolsize) - getCurrentlyAllocated());
+		if (room <= 0) {
+			return 0;
+		}
+		if (poolConfig.getMaxPoolWeight() > 0) {
+			if (currentWeight.get() >= poolConfig.getMaxPoolWeight()) {
+				return 0;
+			}
+			room = 1; // the weight of new objects is unknown until they have been allocated
+		}
+		return capacityBudget != null ? capacityBudget.tryAcquire(room) : room;
+	}
+
+	/**
+	 * Called once for each new object.
+	 *
+	 * @return The object's weight, see {@link Allocator#weigh(Object)}.
+	 */
+	long addWeightOf(final T object) {
+		final long weight = allocator.weigh(object);
+		if (weight < 0) {
+			throw new IllegalStateException("Allocator weighed an object negatively: " + weight);
+		}
+		currentWeight.addAndGet(weight);
+		return weight;
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	@Nullable
+	private PoolableObject<T> findHeaviestAvailableObject() {
+		return findLargestAvailableObject((o1, o2) -> Long.compare(o1.getWeight(), o2.getWeight()));
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	@Nullable
+	private PoolableObject<T> findOldestAvailableObject() {
+		return findLargestAvailableObject((o1, o2) -> Long.compare(o1.ageMs(), o2.ageMs()));
+	}
+
+	@Nullable
+	private PoolableObject<T> findLargestAvailableObject(@NotNull final Comparator<PoolableObject<T>> order) {
+		PoolableObject<T> largest = null;
+		for (final Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				for (final PoolableObject<T> poolableObject : stripe.available) {
+					if (largest == null || order.compare(poolableObject, largest) > 0) {
+						largest = poolableObject;
+					}
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return largest;
+	}
+
+	/**
+	 * Called by the {@link MemoryPressureMonitor} on the JVM's notification thread, so only flags the pool for the allocation thread to trim.
+	 */
+	void memoryPressureDetected() {
+		if (!underMemoryPressure) {
+			log.info("Memory pressure detected, trimming idle objects down to {} and not growing beyond it until it eases", getMemoryPressureFloor());
+		}
+		underMemoryPressure = true;
+		memoryPressureTrimPending = true;
+	}
+
+	/**
+	 * @return Whether the pool has trimmed itself because of memory pressure and is not growing beyond the {@link MemoryPressurePolicy}'s floor, until heap
+	 * usage drops below the threshold again.
+	 */
+	public boolean isUnderMemoryPressure() {
+		return underMemoryPressure;
+	}
+
+	private int getMemoryPressureFloor() {
+		final MemoryPressurePolicy memoryPressurePolicy = poolConfig.getMemoryPressurePolicy();
+		return memoryPressurePolicy != null && memoryPressurePolicy.getFloor() != null ? memoryPressurePolicy.getFloor() : getEffectiveCorePoolsize();
+	}
+
+	private void returnCapacity(final int unused) {
+		if (capacityBudget != null && unused > 0) {
+			capacityBudget.release(unused);
+		}
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void addAllocatedObjects(final Iterator<T> objects) {
+		while (objects.hasNext()) {
+			try {
+				addAllocatedObject(objects.next());
+			} catch (RuntimeException e) {
+				log.error("Not able to add newly allocated object to the pool, deallocated it again", e);
+			}
+		}
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void addAllocatedObject(final T object) {
+		final PoolableObject<T> poolableObject = wrapNewObject(object);
+		currentlyAllocated.incrementAndGet();
+		totalAllocated.incrementAndGet();
+		addAvailableObject(poolableObject);
+	}
+
+	/**
+	 * Wraps a newly allocated object that capacity was reserved for. If that fails, for example because the allocator weighed it negatively, the object is
+	 * deallocated and its capacity returned before rethrowing, so neither leaks.
+	 */
+	@NotNull
+	private PoolableObject<T> wrapNewObject(final T object) {
+		return wrapNewObject(object, refreshGeneration);
+	}
+
+	/**
+	 * @param generation The refresh generation when the object's allocation started.
+	 */
+	@NotNull
+	private PoolableObject<T> wrapNewObject(final T object, final int generation) {
+		try {
+			return new PoolableObject<>(this, object, generation);
+		} catch (RuntimeException e) {
+			returnCapacity(1);
+			discardNewObject(object, e);
+			throw e;
+		}
+	}
+
+	private void discardNewObject(final T object, final RuntimeException cause) {
+		try {
+			if (asyncAllocator != null) {
+				asyncAllocator.deallocateAsync(object);
+			} else {
+				allocator.deallocate(object);
+			}
+		} catch (RuntimeException e) {
+			cause.addSuppressed(e);
+		}
+	}
+
+	/**
+	 * Must be called with the claim lock held.
+	 */
+	private void addAvailableObject(final PoolableObject<T> poolableObject) {
+		final Stripe stripe = stripes.get((nextStripeForNewObjects.getAndIncrement() & Integer.MAX_VALUE) % stripes.size());
+		stripe.lock.lock();
+		try {
+			stripe.available.add(poolableObject);
+		} finally {
+			stripe.lock.unlock();
+		}
+		signalAllWaitingClaimers();
+	}
+
+	private List<PoolableObject<T>> getAvailableObjects() {
+		final List<PoolableObject<T>> availableObjects = new ArrayList<>();
+		for (final Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				for (final PoolableObject<T> poolableObject : stripe.available) {
+					availableObjects.add(poolableObject);
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return availableObjects;
+	}
+
+	private int homeStripeIndex() {
+		return stripes.size() > 1 ? (int) (Thread.currentThread().getId() % stripes.size()) : 0;
+	}
+
+	private void signalWaitingClaimers() {
+		if (pendingClaimers.get() > 0) {
+			claimLock.lock();
+			try {
+				signalAllWaitingClaimers();
+			} finally {
+				claimLock.unlock();
+			}
+		}
+	}
+
 	private void signalAllWaitingClaimers() {
-		for (Condition condition : objectAvailableConditions) {
-			condition.signal();
+		for (Waiter<T> waiter = firstWaiter; waiter != null; waiter = waiter.next) {
+			waiter.signal();
 		}
 	}
 
@@ -513,4 +2379,75 @@ public class GenericObjectPool<T> {
 			deallocateLock.unlock();
 		}
 	}
+
+	/**
+	 * A sub-pool of available objects with its own lock, so claims and releases on different stripes don't block each other.
+	 */
+	@RequiredArgsConstructor
+	private class Stripe {
+		@NotNull private final Lock lock;
+		@NotNull private final AvailableObjects<T> available;
+
+		/**
+		 * Must be called with this stripe's lock held.
+		 */
+		@Nullable
+		PoolableObject<T> pollForClaim() {
+			final PoolableObject<T> poolableObject = available.poll();
+			if (poolableObject != null) {
+				poolableObject.setCurrentPoolStatus(PoolableObject.PoolStatus.CLAIMED);
+			}
+			return poolableObject;
+		}
+	}
+
+	/**
+	 * A claimer waiting for an object, see {@link #claim(int, long, TimeUnit)}. Reused by its thread for every wait and linked into the queue of waiters
+	 * directly, so waiting doesn't allocate anything. Static, so a thread's waiter doesn't keep the pool from being garbage collected.
+	 */
+	private static final class Waiter<T> {
+		@NotNull private final Thread thread = Thread.currentThread();
+		private int priority;
+		/**
+		 * False for claims that only accept specific objects (see {@link #claimMatching(Predicate, long, TimeUnit)}).
+		 */
+		private boolean acceptsHandOff;
+		private long waitingSinceMs;
+		private boolean queued;
+		private volatile boolean signalled;
+		@Nullable private PoolableObject<T> handedOffObject;
+		/**
+		 * Whether the handed off object was just allocated, rather than released by a previous claimer.
+		 */
+		private boolean handedOffObjectIsNew;
+		@Nullable private Waiter<T> previous;
+		@Nullable private Waiter<T> next;
+
+		long effectivePriority(final long nowMs, @Nullable final Timeout agingInterval) {
+			return agingInterval != null ? priority + (nowMs - waitingSinceMs) / agingInterval.getDurationMs() : priority;
+		}
+
+		/**
+		 * Must be called with the claim lock held.
+		 */
+		void signal() {
+			signalled = true;
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Mutable counterpart of {@link WaitTimeMetrics}, so recording a wait doesn't allocate anything.
+	 */
+	private static final class WaitTimes {
+		private long waitCount;
+		private long totalWaitMs;
+		private long maxWaitMs;
+
+		void record(final long waitMs) {
+			waitCount++;
+			totalWaitMs += waitMs;
+			maxWaitMs = Math.max(maxWaitMs, waitMs);
+		}
+	}
 }
@@ -0,0 +1,277 @@
+package org.bbottema.genericobjectpool;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The pool's Java Flight Recorder events, only loaded by {@link PoolEvents} if the JVM supports JFR.
+ * <p>
+ * Each event can be enabled and given a threshold in the recording settings as usual, for example {@code org.bbottema.genericobjectpool.Claim#threshold=5 ms}
+ * in a {@code .jfc} file, or {@code recording.enable("org.bbottema.genericobjectpool.Claim").withThreshold(Duration.ofMillis(5))}. Claims and releases only
+ * take microseconds when no waiting is involved, so they are recorded from 10 ms by default, as are saturation periods; the other events are always
+ * recorded.
+ */
+@Slf4j
+@UtilityClass
+class JfrPoolEvents {
+
+	private static final String CATEGORY = "Generic Object Pool";
+
+	@Nullable private static EventType claimType;
+	@Nullable private static EventType releaseType;
+	@Nullable private static EventType invalidateType;
+	@Nullable private static EventType allocateType;
+	@Nullable private static EventType deallocateType;
+	@Nullable private static EventType expirySweepType;
+	@Nullable private static EventType saturationType;
+
+	static boolean isSupported() {
+		try {
+			claimType = EventType.getEventType(ClaimEvent.class);
+			releaseType = EventType.getEventType(ReleaseEvent.class);
+			invalidateType = EventType.getEventType(InvalidateEvent.class);
+			allocateType = EventType.getEventType(AllocateEvent.class);
+			deallocateType = EventType.getEventType(DeallocateEvent.class);
+			expirySweepType = EventType.getEventType(ExpirySweepEvent.class);
+			saturationType = EventType.getEventType(SaturationEvent.class);
+			return true;
+		} catch (RuntimeException | LinkageError e) {
+			log.debug("Java Flight Recorder not supported, not recording pool events", e);
+			return false;
+		}
+	}
+
+	@Nullable
+	static Object beginClaim() {
+		//noinspection ConstantConditions
+		if (!claimType.isEnabled()) {
+			return null;
+		}
+		final ClaimEvent event = new ClaimEvent();
+		event.begin();
+		return event;
+	}
+
+	static void markClaimAllocated(@NotNull final Object claimEvent) {
+		((ClaimEvent) claimEvent).allocated = true;
+	}
+
+	static void endClaim(@NotNull final Object claimEvent, @NotNull final String pool, final int priority, final boolean claimed) {
+		final ClaimEvent event = (ClaimEvent) claimEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pool = pool;
+			event.priority = priority;
+			event.claimed = claimed;
+			event.commit();
+		}
+	}
+
+	@Nullable
+	static Object beginRelease() {
+		//noinspection ConstantConditions
+		if (!releaseType.isEnabled()) {
+			return null;
+		}
+		final ReleaseEvent event = new ReleaseEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endRelease(@NotNull final Object releaseEvent, @NotNull final String pool) {
+		final ReleaseEvent event = (ReleaseEvent) releaseEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pool = pool;
+			event.commit();
+		}
+	}
+
+	static void invalidated(@NotNull final String pool) {
+		//noinspection ConstantConditions
+		if (invalidateType.isEnabled()) {
+			final InvalidateEvent event = new InvalidateEvent();
+			event.pool = pool;
+			event.commit();
+		}
+	}
+
+	@Nullable
+	static Object beginAllocation() {
+		//noinspection ConstantConditions
+		if (!allocateType.isEnabled()) {
+			return null;
+		}
+		final AllocateEvent event = new AllocateEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endAllocation(@NotNull final Object allocationEvent, @NotNull final String pool, final int requested, final int allocated, @Nullable final Throwable failure) {
+		final AllocateEvent event = (AllocateEvent) allocationEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pool = pool;
+			event.requested = requested;
+			event.allocated = allocated;
+			event.failure = describe(failure);
+			event.commit();
+		}
+	}
+
+	@Nullable
+	static Object beginDeallocation() {
+		//noinspection ConstantConditions
+		if (!deallocateType.isEnabled()) {
+			return null;
+		}
+		final DeallocateEvent event = new DeallocateEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endDeallocation(@NotNull final Object deallocationEvent, @NotNull final String pool, @Nullable final Throwable failure) {
+		final DeallocateEvent event = (DeallocateEvent) deallocationEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pool = pool;
+			event.failure = describe(failure);
+			event.commit();
+		}
+	}
+
+	@Nullable
+	static Object beginExpirySweep() {
+		//noinspection ConstantConditions
+		if (!expirySweepType.isEnabled()) {
+			return null;
+		}
+		final ExpirySweepEvent event = new ExpirySweepEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endExpirySweep(@NotNull final Object expirySweepEvent, @NotNull final String pool, final int scanned, final int expired, final int invalidated) {
+		final ExpirySweepEvent event = (ExpirySweepEvent) expirySweepEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pool = pool;
+			event.scanned = scanned;
+			event.expired = expired;
+			event.invalidated = invalidated;
+			event.commit();
+		}
+	}
+
+	@Nullable
+	static Object beginSaturation() {
+		//noinspection ConstantConditions
+		if (!saturationType.isEnabled()) {
+			return null;
+		}
+		final SaturationEvent event = new SaturationEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endSaturation(@NotNull final Object saturationEvent, @NotNull final String pool, final int peakWaiters, final long rejectedClaims) {
+		final SaturationEvent event = (SaturationEvent) saturationEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pool = pool;
+			event.peakWaiters = peakWaiters;
+			event.rejectedClaims = rejectedClaims;
+			event.commit();
+		}
+	}
+
+	@Nullable
+	private static String describe(@Nullable final Throwable failure) {
+		return failure != null ? failure.toString() : null;
+	}
+
+	@Name("org.bbottema.genericobjectpool.Claim")
+	@Label("Pool Claim")
+	@Description("A claim on a pool, its duration being the time spent waiting for an object")
+	@Category(CATEGORY)
+	@Threshold("10 ms")
+	static class ClaimEvent extends Event {
+		@Label("Pool") String pool;
+		@Label("Priority") int priority;
+		@Label("Allocated") @Description("A new object was created for this claim") boolean allocated;
+		@Label("Claimed") @Description("An object was claimed, rather than the claim timing out, being interrupted or rejected") boolean claimed;
+	}
+
+	@Name("org.bbottema.genericobjectpool.Release")
+	@Label("Pool Release")
+	@Description("An object released back to its pool, including uninitializing it for reuse")
+	@Category(CATEGORY)
+	@Threshold("10 ms")
+	static class ReleaseEvent extends Event {
+		@Label("Pool") String pool;
+	}
+
+	@Name("org.bbottema.genericobjectpool.Invalidate")
+	@Label("Pool Invalidate")
+	@Description("An object removed from its pool, to be deallocated")
+	@Category(CATEGORY)
+	static class InvalidateEvent extends Event {
+		@Label("Pool") String pool;
+	}
+
+	@Name("org.bbottema.genericobjectpool.Allocate")
+	@Label("Pool Allocate")
+	@Description("The creation of one or more new objects by the pool's allocator")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class AllocateEvent extends Event {
+		@Label("Pool") String pool;
+		@Label("Requested") int requested;
+		@Label("Allocated") int allocated;
+		@Label("Failure") String failure;
+	}
+
+	@Name("org.bbottema.genericobjectpool.Deallocate")
+	@Label("Pool Deallocate")
+	@Description("The clean up of an object no longer needed by the pool")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class DeallocateEvent extends Event {
+		@Label("Pool") String pool;
+		@Label("Failure") String failure;
+	}
+
+	@Name("org.bbottema.genericobjectpool.ExpirySweep")
+	@Label("Pool Expiry Sweep")
+	@Description("A check of the available objects against the pool's expiration policy")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class ExpirySweepEvent extends Event {
+		@Label("Pool") String pool;
+		@Label("Scanned") int scanned;
+		@Label("Expired") int expired;
+		@Label("Invalidated") @Description("Expired objects invalidated, which can be fewer than expired due to the max churn rate") int invalidated;
+	}
+
+	@Name("org.bbottema.genericobjectpool.Saturation")
+	@Label("Pool Saturation")
+	@Description("A period during which claimers had to wait for an object")
+	@Category(CATEGORY)
+	@Threshold("10 ms")
+	@StackTrace(false)
+	static class SaturationEvent extends Event {
+		@Label("Pool") String pool;
+		@Label("Peak Waiters") int peakWaiters;
+		@Label("Rejected Claims") @Description("Claims rejected because the max number of waiting claimers was reached") long rejectedClaims;
+	}
+}
@@ -0,0 +1,147 @@
+package org.bbottema.genericobjectpool;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out leases on pooled objects to subscribers as they signal demand, so streaming code gets objects as capacity allows instead of blocking threads in
+ * {@link GenericObjectPool#claim()}. Obtain one with {@link GenericObjectPool#asPublisher()}.
+ * <p>
+ * Follows the {@code java.util.concurrent.Flow} (Reactive Streams) protocol: a subscriber receives its {@link Subscription}, calls
+ * {@link Subscription#request(long)} for the number of objects it can handle and then receives at most that many objects in {@link Subscriber#onNext(Object)}.
+ * Leased objects are claimed objects like any other and must be released or invalidated as usual. Subscriptions complete when the pool shuts down, and fail
+ * when the allocator fails to create a new object. The interfaces are defined here because this library still targets Java 8; adapting them to {@code Flow} or
+ * Reactive Streams types takes a one-line wrapper per method.
+ * <p>
+ * Objects are delivered on the thread that requests them or that makes them available (a releasing thread, for example), and otherwise within a few
+ * milliseconds by the pool's allocation thread.
+ *
+ * @param <T> the value type
+ */
+public final class LeasePublisher<T> {
+
+	@NotNull private final GenericObjectPool<T> pool;
+
+	LeasePublisher(@NotNull final GenericObjectPool<T> pool) {
+		this.pool = pool;
+	}
+
+	public void subscribe(@NotNull final Subscriber<? super PoolableObject<T>> subscriber) {
+		final LeaseSubscription<T> subscription = new LeaseSubscription<>(pool, subscriber);
+		subscriber.onSubscribe(subscription);
+		pool.addLeaseSubscription(subscription);
+		subscription.drain();
+	}
+
+	public interface Subscriber<I> {
+		void onSubscribe(@NotNull Subscription subscription);
+
+		void onNext(@NotNull I item);
+
+		void onError(@NotNull Throwable throwable);
+
+		void onComplete();
+	}
+
+	public interface Subscription {
+		/**
+		 * Adds {@code n} objects to the demand of this subscription, {@link Long#MAX_VALUE} meaning unbounded.
+		 */
+		void request(long n);
+
+		/**
+		 * Stops delivering objects. Objects already delivered remain claimed until released.
+		 */
+		void cancel();
+	}
+
+	static final class LeaseSubscription<T> implements Subscription, Runnable {
+
+		@NotNull private final GenericObjectPool<T> pool;
+		@NotNull private final Subscriber<? super PoolableObject<T>> subscriber;
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger drainsPending = new AtomicInteger();
+		private final AtomicBoolean cancelled = new AtomicBoolean();
+
+		LeaseSubscription(@NotNull final GenericObjectPool<T> pool, @NotNull final Subscriber<? super PoolableObject<T>> subscriber) {
+			this.pool = pool;
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(final long n) {
+			if (n <= 0) {
+				if (stop()) {
+					subscriber.onError(new IllegalArgumentException("Requested number of objects must be positive, was: " + n));
+				}
+				return;
+			}
+			long current;
+			do {
+				current = requested.get();
+			} while (!requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			stop();
+		}
+
+		/**
+		 * Called by the pool when objects may have become available.
+		 */
+		@Override
+		public void run() {
+			if (requested.get() > 0 || pool.isShuttingDown()) {
+				drain();
+			}
+		}
+
+		/**
+		 * Delivers objects while there is demand, one thread at a time. Drains requested while another thread is delivering (including reentrant requests from
+		 * {@link Subscriber#onNext(Object)}) are picked up by that thread.
+		 */
+		void drain() {
+			if (drainsPending.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				while (!cancelled.get() && requested.get() > 0 && !pool.isShuttingDown()) {
+					final PoolableObject<T> lease;
+					try {
+						lease = pool.claimWithoutWaiting();
+					} catch (RuntimeException e) {
+						if (stop()) {
+							subscriber.onError(e);
+						}
+						return;
+					}
+					if (lease == null) {
+						break;
+					}
+					if (requested.get() != Long.MAX_VALUE) {
+						requested.decrementAndGet();
+					}
+					subscriber.onNext(lease);
+				}
+				if (!cancelled.get() && pool.isShuttingDown() && stop()) {
+					subscriber.onComplete();
+				}
+				missed = drainsPending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private boolean stop() {
+			if (!cancelled.compareAndSet(false, true)) {
+				return false;
+			}
+			pool.removeLeaseSubscription(this);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package org.bbottema.genericobjectpool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Relays the JVM's heap memory threshold notifications to the pools with a {@link MemoryPressurePolicy}. Shared by all pools, as the thresholds are set on
+ * the JVM-wide {@link MemoryPoolMXBean}s: each heap memory pool's collection usage threshold is set to the lowest threshold of the registered listeners,
+ * and a notification is passed on to the listeners whose own threshold is exceeded. The thresholds the heap memory pools had before the first listener
+ * registered are restored when the last one deregisters.
+ */
+@Slf4j
+final class MemoryPressureMonitor implements NotificationListener {
+
+	interface Listener {
+		/**
+		 * Called on the JVM's notification thread, so should only hand off the actual work.
+		 */
+		void memoryPressureDetected();
+	}
+
+	private static final MemoryPressureMonitor INSTANCE = new MemoryPressureMonitor();
+
+	@NotNull private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+	@NotNull private final Map<Listener, Double> thresholdsByListener = new ConcurrentHashMap<>();
+	/**
+	 * Guarded by this monitor, while listeners are registered: the collection usage thresholds the heap memory pools had before.
+	 */
+	@NotNull private final Map<MemoryPoolMXBean, Long> originalThresholds = new HashMap<>();
+
+	private MemoryPressureMonitor() {
+		for (final MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (memoryPool.getType() == MemoryType.HEAP && memoryPool.isCollectionUsageThresholdSupported()) {
+				heapPools.add(memoryPool);
+			}
+		}
+	}
+
+	@NotNull
+	static MemoryPressureMonitor getInstance() {
+		return INSTANCE;
+	}
+
+	synchronized void register(@NotNull final Listener listener, final double usageThreshold) {
+		if (thresholdsByListener.isEmpty()) {
+			for (final MemoryPoolMXBean heapPool : heapPools) {
+				originalThresholds.put(heapPool, heapPool.getCollectionUsageThreshold());
+			}
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+		}
+		thresholdsByListener.put(listener, usageThreshold);
+		applyLowestThreshold();
+	}
+
+	synchronized void deregister(@NotNull final Listener listener) {
+		if (thresholdsByListener.remove(listener) == null) {
+			return;
+		}
+		if (thresholdsByListener.isEmpty()) {
+			try {
+				((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+			} catch (ListenerNotFoundException e) {
+				log.debug("memory notification listener was already removed", e);
+			}
+			restoreOriginalThresholds();
+		} else {
+			applyLowestThreshold();
+		}
+	}
+
+	/**
+	 * Sets the collection usage threshold of each heap memory pool with a known max size.
+	 */
+	private void applyLowestThreshold() {
+		double lowestThreshold = 1;
+		for (final double threshold : thresholdsByListener.values()) {
+			lowestThreshold = Math.min(lowestThreshold, threshold);
+		}
+		for (final MemoryPoolMXBean heapPool : heapPools) {
+			final long max = heapPool.getUsage().getMax();
+			if (max > 0) {
+				heapPool.setCollectionUsageThreshold((long) (max * lowestThreshold));
+			}
+		}
+	}
+
+	private void restoreOriginalThresholds() {
+		for (final Map.Entry<MemoryPoolMXBean, Long> originalThreshold : originalThresholds.entrySet()) {
+			try {
+				originalThreshold.getKey().setCollectionUsageThreshold(originalThreshold.getValue());
+			} catch (IllegalArgumentException e) {
+				log.warn("could not restore the collection usage threshold of memory pool {}", originalThreshold.getKey().getName(), e);
+			}
+		}
+		originalThresholds.clear();
+	}
+
+	@Override
+	public void handleNotification(final Notification notification, final Object handback) {
+		if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+			return;
+		}
+		final MemoryUsage usage = MemoryNotificationInfo.from((CompositeData) notification.getUserData()).getUsage();
+		final double usedFraction = usage.getMax() > 0 ? (double) usage.getUsed() / usage.getMax() : 0;
+		for (final Map.Entry<Listener, Double> thresholdByListener : thresholdsByListener.entrySet()) {
+			if (usedFraction >= thresholdByListener.getValue()) {
+				thresholdByListener.getKey().memoryPressureDetected();
+			}
+		}
+	}
+
+	/**
+	 * @return Whether any heap memory pool's usage after the last garbage collection is at or above the given fraction of its max size.
+	 */
+	boolean isAboveThreshold(final double usageThreshold) {
+		for (final MemoryPoolMXBean heapPool : heapPools) {
+			final MemoryUsage usage = heapPool.getCollectionUsage();
+			if (usage != null && usage.getMax() > 0 && usage.getUsed() >= usage.getMax() * usageThreshold) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,63 @@
+package org.bbottema.genericobjectpool;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Makes a pool give up idle objects when the heap gets tight, rather than holding on to them until they expire. Configure it with
+ * {@link PoolConfig#getMemoryPressurePolicy()}.
+ * <p>
+ * The pool subscribes to the JVM's memory threshold notifications: when the heap usage after a garbage collection exceeds the usage threshold in any heap
+ * memory pool that supports it (typically the old generation), the pool invalidates available objects down to the floor and stops growing beyond it. It
+ * checks every second whether usage has dropped below the threshold again, and grows as usual from then on.
+ * <p>
+ * The usage thresholds are set on the JVM's {@link java.lang.management.MemoryPoolMXBean}s, to the lowest threshold of all pools with a memory pressure
+ * policy. Thresholds set by other code are overridden while any such pool is running, and restored once the last one is shut down.
+ * <p>
+ * Only heap memory is monitored: the JVM has no threshold notifications for direct memory, so pressure from direct buffers (such as those of a
+ * {@link org.bbottema.genericobjectpool.bytebuffer.DirectByteBufferPool}) does not trigger trimming.
+ */
+@Value
+public class MemoryPressurePolicy {
+
+	public enum TrimPreference {
+		/**
+		 * Invalidates the heaviest objects first, see {@link Allocator#weigh(Object)}.
+		 */
+		LARGEST,
+		/**
+		 * Invalidates the oldest objects first.
+		 */
+		OLDEST
+	}
+
+	/**
+	 * Fraction (0.0 - 1.0] of a heap memory pool's max size from which the pool trims itself.
+	 */
+	private final double usageThreshold;
+	@NotNull private final TrimPreference trimPreference;
+	/**
+	 * The number of objects the pool trims down to, or the core pool size if empty.
+	 */
+	@Nullable private final Integer floor;
+
+	/**
+	 * Creates a policy that trims down to the core pool size.
+	 */
+	public MemoryPressurePolicy(final double usageThreshold, @NotNull final TrimPreference trimPreference) {
+		this(usageThreshold, trimPreference, null);
+	}
+
+	public MemoryPressurePolicy(final double usageThreshold, @NotNull final TrimPreference trimPreference, @Nullable final Integer floor) {
+		if (usageThreshold <= 0 || usageThreshold > 1) {
+			throw new IllegalArgumentException("Usage threshold should be above 0 and at most 1");
+		}
+		if (floor != null && floor < 0) {
+			throw new IllegalArgumentException("Floor cannot be negative");
+		}
+		this.usageThreshold = usageThreshold;
+		this.trimPreference = trimPreference;
+		this.floor = floor;
+	}
+}
@@ -4,9 +4,13 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.Builder;
 import lombok.Value;
 import lombok.experimental.NonFinal;
+import org.bbottema.genericobjectpool.util.Clock;
+import org.bbottema.genericobjectpool.util.CoarseClock;
+import org.bbottema.genericobjectpool.util.Timeout;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.file.Path;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
@@ -18,6 +22,14 @@ public class PoolConfig<T> {
 	 * Determines how large the pool is allowed to grow. Can be unbounded by using {@link Integer#MAX_VALUE}.
 	 */
 	private final int maxPoolsize;
+	/**
+	 * Optional limit on the total weight of the allocated objects (see {@link Allocator#weigh(Object)}), in addition to the max pool size. To bound a pool by
+	 * weight only, use {@link Integer#MAX_VALUE} for the max pool size. Unlimited if left 0.
+	 * <p>
+	 * As an object's weight is only known once it has been allocated, the pool grows while its weight is below the limit, and then evicts available objects,
+	 * heaviest first, until it is within the limit again. So the limit can be exceeded by the weight of the objects being allocated at that moment.
+	 */
+	private final long maxPoolWeight;
 	/**
 	 * Determines how many objects should be kept allocated even without claims. For unbounded pools, be careful not to provide a large
 	 * number, or else the pool will run out of memory.
@@ -30,13 +42,103 @@ public class PoolConfig<T> {
 	 */
 	@NotNull private final ThreadFactory threadFactory;
 	@NotNull private final ExpirationPolicy<T> expirationPolicy;
+	/**
+	 * Optional maximum number of objects per second the pool's housekeeping invalidates due to expiry, and separately, allocates to replace objects below the
+	 * core pool size (after the core pool was filled initially). Deferred invalidations and allocations are spread evenly over time, so objects that were
+	 * created together and expire together don't hammer the backing system with reconnects. Allocations for claims are not limited. Unlimited if left 0.
+	 */
+	private final double maxChurnPerSecond;
+	/**
+	 * Determines which available object is handed out on a claim. Defaults to {@link SelectionStrategy#FIFO}.
+	 */
+	@NotNull private final SelectionStrategy selectionStrategy;
+	/**
+	 * Number of sub-pools the available objects are divided over, each with its own lock. A thread claims from its own stripe and only steals from other
+	 * stripes when its own stripe is empty, which reduces lock contention on machines with many cores. Max / core pool size, metrics and expiry still apply to
+	 * the pool as a whole. Defaults to 1 (no striping).
+	 */
+	private final int stripes;
+	/**
+	 * Optional maximum number of claimers that can wait for an object at the same time. When reached, claims that would have to wait fail immediately with
+	 * a {@link PoolSaturatedException}. Unbounded if left empty.
+	 */
+	@Nullable private final Integer maxWaiters;
+	/**
+	 * Optional interval after which a waiting claimer's priority is raised by one (and again after each further interval), so low priority claimers are not
+	 * starved by a steady stream of higher priority claims. Disabled if left empty. See {@link GenericObjectPool#claim(int, Timeout)}.
+	 */
+	@Nullable private final Timeout priorityAgingInterval;
+	/**
+	 * Optional limit on the number of objects this pool and other pools sharing the same budget may have allocated together. Waiting claimers in this pool
+	 * can get capacity by evicting idle objects from the other pools. See {@link CapacityBudget}.
+	 */
+	@Nullable private final CapacityBudget capacityBudget;
+	/**
+	 * Optional daily windows during which the core pool size is raised, with the pool filled up ahead of each window and scaled back down after it. See
+	 * {@link CapacitySchedule}.
+	 */
+	@Nullable private final CapacitySchedule capacitySchedule;
+	/**
+	 * Optional policy to trim idle objects when the heap usage after a garbage collection crosses a threshold, and to stop growing until it drops below it
+	 * again. See {@link MemoryPressurePolicy}.
+	 */
+	@Nullable private final MemoryPressurePolicy memoryPressurePolicy;
+	/**
+	 * Optional file to save the pool's {@link SizingProfile} to, on shutdown and at {@link #getSizingProfileSaveInterval()}. On startup, a pool with a saved
+	 * profile pre-warms to the working size it observed (within the max pool size) in parallel, rather than starting out at the core pool size.
+	 */
+	@Nullable private final Path sizingProfileFile;
+	/**
+	 * Optional interval at which the sizing profile is saved, so it survives a crash. Only saved on shutdown if left empty.
+	 */
+	@Nullable private final Timeout sizingProfileSaveInterval;
+	/**
+	 * Optional threshold after which an object that is still claimed (not released or invalidated) is reported as a possible leak. Disabled if left empty.
+	 */
+	@Nullable private final Timeout leakDetectionThreshold;
+	/**
+	 * Fraction of claims (0.0 - 1.0) for which the claim-site stack trace is recorded, so a leak report can show where the leaked object was claimed. Capturing
+	 * stack traces is relatively expensive, so keep this low for busy pools. Without a sampled stack trace, only the claiming thread is reported.
+	 */
+	private final double leakDetectionStackTraceSampleRate;
+	/**
+	 * If enabled, objects reported as leaked are invalidated and replaced by a newly allocated object, so a leak slows the pool down rather than exhausting it.
+	 * <p>
+	 * Note that the original claimer may still be using the object while it is being deallocated.
+	 */
+	private final boolean reclaimLeakedObjects;
+	/**
+	 * Source of time for object ages (and so expiry and leak detection). Defaults to a {@link CoarseClock}, which is updated by the pool's housekeeping
+	 * threads. Use a {@link org.bbottema.genericobjectpool.util.ManualClock} to control time in tests.
+	 */
+	@NotNull private final Clock clock;
 	
 	@SuppressWarnings("unused")
-	private PoolConfig(int maxPoolsize, int corePoolsize, @Nullable ThreadFactory threadFactory, @Nullable ExpirationPolicy<T> expirationPolicy) {
+	private PoolConfig(int maxPoolsize, long maxPoolWeight, int corePoolsize, @Nullable ThreadFactory threadFactory, @Nullable ExpirationPolicy<T> expirationPolicy,
+			double maxChurnPerSecond, @Nullable SelectionStrategy selectionStrategy, int stripes, @Nullable Integer maxWaiters, @Nullable Timeout priorityAgingInterval,
+			@Nullable CapacityBudget capacityBudget, @Nullable CapacitySchedule capacitySchedule, @Nullable MemoryPressurePolicy memoryPressurePolicy,
+			@Nullable Path sizingProfileFile, @Nullable Timeout sizingProfileSaveInterval,
+			@Nullable Timeout leakDetectionThreshold, double leakDetectionStackTraceSampleRate, boolean reclaimLeakedObjects,
+			@Nullable Clock clock) {
 		this.maxPoolsize = maxPoolsize;
+		this.maxPoolWeight = maxPoolWeight;
 		this.corePoolsize = corePoolsize;
 		this.threadFactory = (threadFactory != null) ? threadFactory : Executors.defaultThreadFactory();
 		this.expirationPolicy = (expirationPolicy != null) ? expirationPolicy : ExpirationPolicy.NeverExpirePolicy.<T>getInstance();
+		this.maxChurnPerSecond = maxChurnPerSecond;
+		this.selectionStrategy = (selectionStrategy != null) ? selectionStrategy : SelectionStrategy.FIFO;
+		this.stripes = (stripes != 0) ? stripes : 1;
+		this.maxWaiters = maxWaiters;
+		this.priorityAgingInterval = priorityAgingInterval;
+		this.capacityBudget = capacityBudget;
+		this.capacitySchedule = capacitySchedule;
+		this.memoryPressurePolicy = memoryPressurePolicy;
+		this.sizingProfileFile = sizingProfileFile;
+		this.sizingProfileSaveInterval = sizingProfileSaveInterval;
+		this.leakDetectionThreshold = leakDetectionThreshold;
+		this.leakDetectionStackTraceSampleRate = leakDetectionStackTraceSampleRate;
+		this.reclaimLeakedObjects = reclaimLeakedObjects;
+		this.clock = (clock != null) ? clock : new CoarseClock();
 		
 		if (maxPoolsize <= 0) {
 			throw new IllegalArgumentException("Pool size should have a max size of at least one");
@@ -44,5 +146,35 @@ public class PoolConfig<T> {
 		if (corePoolsize > maxPoolsize) {
 			throw new IllegalArgumentException("Core pool size cannot be bigger than the pool's max size");
 		}
+		if (maxPoolWeight < 0) {
+			throw new IllegalArgumentException("Max pool weight cannot be negative");
+		}
+		if (maxChurnPerSecond < 0) {
+			throw new IllegalArgumentException("Max churn per second cannot be negative");
+		}
+		if (stripes < 0) {
+			throw new IllegalArgumentException("Number of stripes cannot be negative");
+		}
+		if (maxWaiters != null && maxWaiters < 0) {
+			throw new IllegalArgumentException("Max waiters cannot be negative");
+		}
+		if (priorityAgingInterval != null && priorityAgingInterval.getDurationMs() <= 0) {
+			throw new IllegalArgumentException("Priority aging interval should be at least one millisecond");
+		}
+		if (memoryPressurePolicy != null && memoryPressurePolicy.getFloor() != null && memoryPressurePolicy.getFloor() > maxPoolsize) {
+			throw new IllegalArgumentException("Memory pressure floor cannot be bigger than the pool's max size");
+		}
+		if (sizingProfileSaveInterval != null && sizingProfileFile == null) {
+			throw new IllegalArgumentException("Saving the sizing profile at an interval requires a sizing profile file");
+		}
+		if (sizingProfileSaveInterval != null && sizingProfileSaveInterval.getDurationMs() <= 0) {
+			throw new IllegalArgumentException("Sizing profile save interval should be at least one millisecond");
+		}
+		if (leakDetectionStackTraceSampleRate < 0 || leakDetectionStackTraceSampleRate > 1) {
+			throw new IllegalArgumentException("Leak detection stack trace sample rate should be between 0 and 1");
+		}
+		if (reclaimLeakedObjects && leakDetectionThreshold == null) {
+			throw new IllegalArgumentException("Reclaiming leaked objects requires a leak detection threshold");
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package org.bbottema.genericobjectpool;
+
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Records the pool's lifecycle as Java Flight Recorder events (see {@link JfrPoolEvents}), if the JVM supports JFR. The {@code jdk.jfr} classes are only
+ * touched through {@link JfrPoolEvents}, which is never loaded on JVMs without JFR.
+ * <p>
+ * Events that are measured over time are started with a {@code begin} method, which returns null unless the event is enabled in a running recording, and
+ * finished with the corresponding {@code end} method. So unless you are recording, the pool pays no more than a boolean check per event.
+ */
+@UtilityClass
+class PoolEvents {
+
+	private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+	private static boolean isJfrAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false; // Java 8 before update 262, or a JVM without JFR
+		}
+		return JfrPoolEvents.isSupported();
+	}
+
+	@Nullable
+	static Object beginClaim() {
+		return JFR_AVAILABLE ? JfrPoolEvents.beginClaim() : null;
+	}
+
+	static void markClaimAllocated(@Nullable final Object claimEvent) {
+		if (claimEvent != null) {
+			JfrPoolEvents.markClaimAllocated(claimEvent);
+		}
+	}
+
+	static void endClaim(@Nullable final Object claimEvent, @NotNull final String pool, final int priority, final boolean claimed) {
+		if (claimEvent != null) {
+			JfrPoolEvents.endClaim(claimEvent, pool, priority, claimed);
+		}
+	}
+
+	@Nullable
+	static Object beginRelease() {
+		return JFR_AVAILABLE ? JfrPoolEvents.beginRelease() : null;
+	}
+
+	static void endRelease(@Nullable final Object releaseEvent, @NotNull final String pool) {
+		if (releaseEvent != null) {
+			JfrPoolEvents.endRelease(releaseEvent, pool);
+		}
+	}
+
+	static void invalidated(@NotNull final String pool) {
+		if (JFR_AVAILABLE) {
+			JfrPoolEvents.invalidated(pool);
+		}
+	}
+
+	@Nullable
+	static Object beginAllocation() {
+		return JFR_AVAILABLE ? JfrPoolEvents.beginAllocation() : null;
+	}
+
+	static void endAllocation(@Nullable final Object allocationEvent, @NotNull final String pool, final int requested, final int allocated, @Nullable final Throwable failure) {
+		if (allocationEvent != null) {
+			JfrPoolEvents.endAllocation(allocationEvent, pool, requested, allocated, failure);
+		}
+	}
+
+	@Nullable
+	static Object beginDeallocation() {
+		return JFR_AVAILABLE ? JfrPoolEvents.beginDeallocation() : null;
+	}
+
+	static void endDeallocation(@Nullable final Object deallocationEvent, @NotNull final String pool, @Nullable final Throwable failure) {
+		if (deallocationEvent != null) {
+			JfrPoolEvents.endDeallocation(deallocationEvent, pool, failure);
+		}
+	}
+
+	@Nullable
+	static Object beginExpirySweep() {
+		return JFR_AVAILABLE ? JfrPoolEvents.beginExpirySweep() : null;
+	}
+
+	static void endExpirySweep(@Nullable final Object expirySweepEvent, @NotNull final String pool, final int scanned, final int expired, final int invalidated) {
+		if (expirySweepEvent != null) {
+			JfrPoolEvents.endExpirySweep(expirySweepEvent, pool, scanned, expired, invalidated);
+		}
+	}
+
+	@Nullable
+	static Object beginSaturation() {
+		return JFR_AVAILABLE ? JfrPoolEvents.beginSaturation() : null;
+	}
+
+	static void endSaturation(@Nullable final Object saturationEvent, @NotNull final String pool, final int peakWaiters, final long rejectedClaims) {
+		if (saturationEvent != null) {
+			JfrPoolEvents.endSaturation(saturationEvent, pool, peakWaiters, rejectedClaims);
+		}
+	}
+}
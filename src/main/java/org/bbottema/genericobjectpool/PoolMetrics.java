@@ -2,6 +2,9 @@ package org.bbottema.genericobjectpool;
 
 import lombok.Value;
 import lombok.experimental.NonFinal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
 
 @NonFinal@Value
 public class PoolMetrics {
@@ -10,6 +13,26 @@ public class PoolMetrics {
 	private final int currentlyAllocated;
 	private final int corePoolsize;
 	private final int maxPoolsize;
+	/**
+	 * Total weight of the objects currently allocated, see {@link Allocator#weigh(Object)}. Equals the number of objects by default.
+	 */
+	private final long currentWeight;
+	/**
+	 * See {@link PoolConfig#getMaxPoolWeight()}, 0 if unlimited.
+	 */
+	private final long maxPoolWeight;
 	private final long totalAllocated;
 	private final long totalClaimed;
+	/**
+	 * Number of claims that were held longer than the leak detection threshold, see {@link PoolConfig#getLeakDetectionThreshold()}.
+	 */
+	private final long totalLeaksDetected;
+	/**
+	 * Number of claims rejected with a {@link PoolSaturatedException}, see {@link PoolConfig#getMaxWaiters()}.
+	 */
+	private final long totalRejected;
+	/**
+	 * Wait times of claims that could not be served right away, by the priority they were claimed with (see {@link GenericObjectPool#claim(int, Timeout)}).
+	 */
+	@NotNull private final Map<Integer, WaitTimeMetrics> waitTimesByPriority;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package org.bbottema.genericobjectpool;
+
+/**
+ * Thrown by a claim that would have to wait for an object, while the maximum number of waiting claimers has already been reached. This way, callers can
+ * shed load right away instead of queueing up work that would likely time out anyway.
+ *
+ * @see PoolConfig#getMaxWaiters()
+ */
+public class PoolSaturatedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	PoolSaturatedException(final int maxWaiters) {
+		super("Pool has no objects available and already has the maximum number of waiting claimers (" + maxWaiters + ")");
+	}
+}
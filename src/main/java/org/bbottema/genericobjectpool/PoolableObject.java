@@ -4,11 +4,17 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+import static java.util.Objects.requireNonNull;
 import static lombok.AccessLevel.PACKAGE;
 import static org.bbottema.genericobjectpool.PoolableObject.PoolStatus.AVAILABLE;
 import static org.bbottema.genericobjectpool.PoolableObject.PoolStatus.DEALLOCATED;
@@ -25,6 +31,10 @@ public class PoolableObject<T> {
 		AVAILABLE, CLAIMED, WAITING_FOR_DEALLOCATION, DEALLOCATED
 	}
 
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<PoolableObject, PoolStatus> POOL_STATUS_UPDATER =
+			AtomicReferenceFieldUpdater.newUpdater(PoolableObject.class, PoolStatus.class, "currentPoolStatus");
+
 	@ToString.Exclude
 	private final GenericObjectPool<T> pool;
 	/**
@@ -37,24 +47,65 @@ public class PoolableObject<T> {
 	 * </ul>
 	 */
 	@NotNull private T allocatedObject;
-	private final Date createdOn = new Date();
 	/**
-	 * Millisecond stamp from {@link System#currentTimeMillis()}, similar to {@link #getCreatedOn()}.
+	 * Wall-clock time of creation, kept apart from the pool's {@link org.bbottema.genericobjectpool.util.Clock}, which need not follow wall-clock time.
+	 */
+	private final long createdOnMs = System.currentTimeMillis();
+	/**
+	 * Millisecond stamps from the pool's {@link org.bbottema.genericobjectpool.util.Clock}.
 	 */
 	private final long creationStampMs;
-	private long allocationStampMs;
+	/**
+	 * The pool's refresh generation when this object was created, see {@link GenericObjectPool#refresh(double)}.
+	 */
+	@ToString.Exclude @Getter(PACKAGE) private final int generation;
+	/**
+	 * See {@link Allocator#attributesOf(Object)}, null if the object has none.
+	 */
+	@Nullable private final Map<String, Object> attributes;
+	/**
+	 * See {@link Allocator#weigh(Object)}.
+	 */
+	@Getter private final long weight;
+	@Getter(PACKAGE) private long allocationStampMs;
 	private long availableStampMs;
-	@NotNull @Getter private Map<ExpirationPolicy, Long> expiriesMs = new HashMap<>();
+	/**
+	 * Backing fields for {@link #getExpiriesMs()}. Most pools have a single expiration policy, so the first policy's expiry is stored inline and only further
+	 * policies (see {@link org.bbottema.genericobjectpool.expirypolicies.CombinedExpirationPolicies}) need an actual map.
+	 */
+	@ToString.Exclude @Nullable private ExpirationPolicy<T> expiryPolicy;
+	@ToString.Exclude private long expiryMs;
+	@ToString.Exclude @Nullable private Map<ExpirationPolicy<T>, Long> moreExpiriesMs;
 	/**
 	 * Performance optimisation: this field keeps track of the list this poolable object is in, so we don't have to do {@code .contains(object)}
 	 * all the time.
 	 */
-	@NotNull @Getter(PACKAGE) @Setter(PACKAGE) private PoolStatus currentPoolStatus;
+	@NotNull @Getter(PACKAGE) @Setter(PACKAGE) private volatile PoolStatus currentPoolStatus;
+	/**
+	 * Only recorded when leak detection is enabled, see {@link PoolConfig#getLeakDetectionThreshold()}.
+	 */
+	@ToString.Exclude
+	@Nullable @Getter(PACKAGE) @Setter(PACKAGE) private ClaimSite claimSite;
+	/**
+	 * Intrusive links maintained by the {@link AvailableObjects} store this object is in (if any), so the store doesn't need list nodes of its own. Guarded
+	 * by the lock of that store's stripe.
+	 */
+	@ToString.Exclude @Nullable PoolableObject<T> previousAvailable;
+	@ToString.Exclude @Nullable PoolableObject<T> nextAvailable;
+	@ToString.Exclude @Nullable AvailableObjects<T> availableIn;
+	/**
+	 * Index in the random selection array of the store this object is in, see {@link SelectionStrategy#RANDOM}.
+	 */
+	@ToString.Exclude int randomSlot;
 	
-	PoolableObject(GenericObjectPool<T> pool, @NotNull T allocatedObject) {
+	PoolableObject(GenericObjectPool<T> pool, @NotNull T allocatedObject, int generation) {
 		this.pool = pool;
 		this.allocatedObject = allocatedObject;
-		this.creationStampMs = System.currentTimeMillis();
+		this.creationStampMs = pool.currentTimeMs();
+		this.generation = generation;
+		final Map<String, Object> attributes = pool.getAllocator().attributesOf(allocatedObject);
+		this.attributes = attributes.isEmpty() ? null : Collections.unmodifiableMap(new HashMap<>(attributes));
+		this.weight = pool.addWeightOf(allocatedObject);
 		this.allocationStampMs = creationStampMs;
 		this.availableStampMs = creationStampMs;
 		this.currentPoolStatus = AVAILABLE;
@@ -75,12 +126,19 @@ public class PoolableObject<T> {
 		pool.invalidatePoolableObject(this);
 	}
 	
+	/**
+	 * Used for the transitions that can race each other, such as a release and a leaked object being reclaimed.
+	 */
+	boolean compareAndSetCurrentPoolStatus(@NotNull final PoolStatus expectedStatus, @NotNull final PoolStatus newStatus) {
+		return POOL_STATUS_UPDATER.compareAndSet(this, expectedStatus, newStatus);
+	}
+	
 	void resetAllocationTimestamp() {
-		allocationStampMs = System.currentTimeMillis();
+		allocationStampMs = pool.currentTimeMs();
 	}
 
 	void resetAvailableTimestamp() {
-		availableStampMs = System.currentTimeMillis();
+		availableStampMs = pool.currentTimeMs();
 	}
 	
 	/**
@@ -88,21 +146,21 @@ public class PoolableObject<T> {
 	 */
 	@SuppressWarnings("unused")
 	public long ageMs() {
-		return System.currentTimeMillis() - creationStampMs;
+		return pool.currentTimeMs() - creationStampMs;
 	}
 	
 	/**
 	 * @return The numbers of milliseconds since this object was allocated last.
 	 */
 	public long allocationAgeMs() {
-		return System.currentTimeMillis() -  allocationStampMs;
+		return pool.currentTimeMs() - allocationStampMs;
 	}
 
 	/**
 	 * @return The number of milliseconds this object has been available for claiming, or 0 if it is not currently available.
 	 */
 	public long idleAgeMs() {
-		return currentPoolStatus == AVAILABLE ? System.currentTimeMillis() - availableStampMs : 0;
+		return currentPoolStatus == AVAILABLE ? pool.currentTimeMs() - availableStampMs : 0;
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -114,6 +172,19 @@ public class PoolableObject<T> {
 		static final ObjectDeallocated INSTANCE = new ObjectDeallocated();
 	}
 	
+	/**
+	 * @return The attributes the allocator gave this object, see {@link Allocator#attributesOf(Object)}.
+	 */
+	@NotNull
+	public Map<String, Object> getAttributes() {
+		return attributes != null ? attributes : Collections.<String, Object>emptyMap();
+	}
+
+	@Nullable
+	public Object getAttribute(@NotNull final String key) {
+		return attributes != null ? attributes.get(key) : null;
+	}
+
 	@NotNull
 	public T getAllocatedObject() {
 		if (currentPoolStatus == DEALLOCATED) {
@@ -122,7 +193,85 @@ public class PoolableObject<T> {
 		return allocatedObject;
 	}
 
+	/**
+	 * @return The wall-clock time of creation.
+	 */
 	public Date getCreatedOn() {
-		return new Date(createdOn.getTime()); // Return a defensive copy
+		return new Date(createdOnMs);
+	}
+
+	/**
+	 * Expiry ages stored by expiration policies (such as {@link org.bbottema.genericobjectpool.expirypolicies.TimeoutExpirationPolicy}), by policy.
+	 *
+	 * @return A live view on the expiries stored on this object. Iterating it works on a snapshot. Its keys are raw for compatibility with existing policies,
+	 * but should be policies for this object's type.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	@NotNull
+	public Map<ExpirationPolicy, Long> getExpiriesMs() {
+		return (Map) new ExpiriesMsView();
+	}
+
+	private class ExpiriesMsView extends AbstractMap<ExpirationPolicy<T>, Long> {
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		@Nullable
+		public Long get(final Object key) {
+			if (expiryPolicy != null && expiryPolicy.equals(key)) {
+				return expiryMs;
+			}
+			return moreExpiriesMs != null ? moreExpiriesMs.get(key) : null;
+		}
+
+		@Override
+		@Nullable
+		public Long put(final ExpirationPolicy<T> key, final Long value) {
+			requireNonNull(key, "key");
+			requireNonNull(value, "value");
+			if (expiryPolicy == null || expiryPolicy.equals(key)) {
+				final Long previousValue = expiryPolicy != null ? expiryMs : null;
+				expiryPolicy = key;
+				expiryMs = value;
+				return previousValue;
+			}
+			if (moreExpiriesMs == null) {
+				moreExpiriesMs = new HashMap<>();
+			}
+			return moreExpiriesMs.put(key, value);
+		}
+
+		@Override
+		@Nullable
+		public Long remove(final Object key) {
+			if (expiryPolicy != null && expiryPolicy.equals(key)) {
+				expiryPolicy = null;
+				return expiryMs;
+			}
+			return moreExpiriesMs != null ? moreExpiriesMs.remove(key) : null;
+		}
+
+		@Override
+		public void clear() {
+			expiryPolicy = null;
+			moreExpiriesMs = null;
+		}
+
+		@NotNull
+		@Override
+		public Set<Entry<ExpirationPolicy<T>, Long>> entrySet() {
+			final Map<ExpirationPolicy<T>, Long> snapshot = new HashMap<>();
+			if (expiryPolicy != null) {
+				snapshot.put(expiryPolicy, expiryMs);
+			}
+			if (moreExpiriesMs != null) {
+				snapshot.putAll(moreExpiriesMs);
+			}
+			return Collections.unmodifiableMap(snapshot).entrySet();
+		}
 	}
 }
@@ -0,0 +1,60 @@
+package org.bbottema.genericobjectpool;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a rolling refresh started with {@link GenericObjectPool#refresh(double)}.
+ */
+public final class RefreshProgress {
+
+	private final int objectsToReplace;
+	@NotNull private final AtomicInteger objectsReplaced = new AtomicInteger();
+	@NotNull private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+	RefreshProgress(final int objectsToReplace) {
+		this.objectsToReplace = objectsToReplace;
+		if (objectsToReplace == 0) {
+			completion.complete(null);
+		}
+	}
+
+	/**
+	 * @return The number of objects in the pool when the refresh started, including those still being allocated.
+	 */
+	public int getObjectsToReplace() {
+		return objectsToReplace;
+	}
+
+	/**
+	 * @return The number of objects from before the refresh that have been retired so far, either by the refresh or otherwise (invalidated, expired).
+	 */
+	public int getObjectsReplaced() {
+		return objectsReplaced.get();
+	}
+
+	public boolean isDone() {
+		return completion.isDone();
+	}
+
+	/**
+	 * @return Completes once all objects from before the refresh have been retired.
+	 */
+	@NotNull
+	public CompletableFuture<Void> getCompletion() {
+		return completion;
+	}
+
+	void objectReplaced() {
+		if (objectsReplaced.incrementAndGet() >= objectsToReplace) {
+			completion.complete(null);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RefreshProgress(" + getObjectsReplaced() + "/" + objectsToReplace + ")";
+	}
+}
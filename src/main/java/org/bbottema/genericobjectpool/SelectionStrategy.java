@@ -0,0 +1,25 @@
+package org.bbottema.genericobjectpool;
+
+/**
+ * Determines which of the available objects is handed out on a claim.
+ */
+public enum SelectionStrategy {
+	/**
+	 * Claims the object that was made available most recently. Keeps reusing the same (warm) objects, while the rest of the pool stays idle and can expire
+	 * with an idle based expiration policy (such as {@link org.bbottema.genericobjectpool.expirypolicies.TimeoutSinceLastAllocationExpirationPolicy}).
+	 */
+	LIFO,
+	/**
+	 * Claims the object that was made available longest ago, rotating through all available objects. This is the default.
+	 */
+	FIFO,
+	/**
+	 * Claims the object that was claimed longest ago (or created, if it was never claimed). Unlike {@link #FIFO}, an object that was held for a long time
+	 * before being released is considered less recently used than objects that were claimed after it.
+	 */
+	LRU,
+	/**
+	 * Claims a random available object.
+	 */
+	RANDOM
+}
@@ -0,0 +1,88 @@
+package org.bbottema.genericobjectpool;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The working size a pool observed, saved to {@link PoolConfig#getSizingProfileFile()} so that after a restart the pool can pre-warm to that size rather
+ * than growing back to it one claim at a time.
+ */
+@Slf4j
+@Value
+public class SizingProfile {
+	/**
+	 * The highest number of objects claimed at the same time.
+	 */
+	private final int peakConcurrency;
+	/**
+	 * The number of idle objects the pool typically had, averaged over roughly the last minute.
+	 */
+	private final int typicalIdle;
+	/**
+	 * The average time it took to allocate an object, 0 if nothing was allocated.
+	 */
+	private final long allocationLatencyNs;
+
+	/**
+	 * @return The number of objects to pre-warm the pool with: enough for the peak concurrency, plus the idle objects it typically had on top of that.
+	 */
+	public int getWorkingSize() {
+		return peakConcurrency + typicalIdle;
+	}
+
+	/**
+	 * @return The profile saved in the given file, or null if there is none (yet) or it can't be read, in which case the pool starts out as usual.
+	 */
+	@Nullable
+	static SizingProfile load(@NotNull final Path file) {
+		final Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+			return new SizingProfile(
+					Integer.parseInt(properties.getProperty("peakConcurrency")),
+					Integer.parseInt(properties.getProperty("typicalIdle")),
+					Long.parseLong(properties.getProperty("allocationLatencyNs")));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Not able to read sizing profile {}, ignoring it", file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the profile to a temporary file first and then moves it in place, so a crash halfway leaves the previous profile intact. Failures are only logged,
+	 * as the profile is an optimization.
+	 */
+	void save(@NotNull final Path file) {
+		final Properties properties = new Properties();
+		properties.setProperty("peakConcurrency", String.valueOf(peakConcurrency));
+		properties.setProperty("typicalIdle", String.valueOf(typicalIdle));
+		properties.setProperty("allocationLatencyNs", String.valueOf(allocationLatencyNs));
+		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(tempFile)) {
+				properties.store(out, "Generic Object Pool sizing profile");
+			}
+			try {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			log.warn("Not able to save sizing profile {}", file, e);
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package org.bbottema.genericobjectpool;
+
+import lombok.Value;
+
+/**
+ * Time spent waiting by claims of one priority level that could not be served right away, see {@link PoolMetrics#getWaitTimesByPriority()}.
+ */
+@Value
+public class WaitTimeMetrics {
+	private final long waitCount;
+	private final long totalWaitMs;
+	private final long maxWaitMs;
+
+	public long getAverageWaitMs() {
+		return waitCount > 0 ? totalWaitMs / waitCount : 0;
+	}
+}
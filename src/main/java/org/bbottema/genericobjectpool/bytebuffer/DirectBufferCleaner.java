@@ -0,0 +1,61 @@
+package org.bbottema.genericobjectpool.bytebuffer;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Frees the native memory of a direct buffer right away, rather than when the garbage collector gets to it, which for long-lived buffers can take until the
+ * JVM runs out of direct memory. Uses {@code sun.misc.Unsafe#invokeCleaner} on Java 9+ and the buffer's {@code cleaner()} on Java 8; if neither is
+ * accessible, freeing is left to the garbage collector.
+ * <p>
+ * Only whole buffers can be freed, not slices or duplicates of them.
+ */
+@Slf4j
+@UtilityClass
+class DirectBufferCleaner {
+
+	@Nullable private static final Object UNSAFE;
+	@Nullable private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			invokeCleaner = null; // Java 8, use the buffer's own cleaner
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	static void free(@NotNull final ByteBuffer buffer) {
+		if (!buffer.isDirect()) {
+			return;
+		}
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				final Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			log.debug("Not able to free direct buffer explicitly, leaving it to the garbage collector", e);
+		}
+	}
+}
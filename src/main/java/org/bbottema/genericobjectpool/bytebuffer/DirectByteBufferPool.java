@@ -0,0 +1,136 @@
+package org.bbottema.genericobjectpool.bytebuffer;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.bbottema.genericobjectpool.GenericObjectPool;
+import org.bbottema.genericobjectpool.PoolConfig;
+import org.bbottema.genericobjectpool.PoolMetrics;
+import org.bbottema.genericobjectpool.PoolableObject;
+import org.bbottema.genericobjectpool.util.Timeout;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static java.util.Objects.requireNonNull;
+import static org.bbottema.genericobjectpool.util.ForeverTimeout.WAIT_FOREVER;
+
+/**
+ * Pool of direct {@link ByteBuffer}s of varying sizes, as allocating direct buffers is expensive and their memory is only released by the garbage collector.
+ * <p>
+ * Buffers come in power-of-two size classes, each backed by its own {@link GenericObjectPool} (created on first use). A claim gets a buffer from the
+ * smallest size class that fits, cleared, so its capacity may be larger than requested. Small buffers are sliced from larger slabs (see
+ * {@link DirectByteBufferPoolConfig#getSlabSize()}), and deallocated buffers are freed right away rather than left to the garbage collector. Release or
+ * invalidate claimed buffers like any pooled object; don't keep using a buffer, or a slice or duplicate of it, after releasing it.
+ */
+public class DirectByteBufferPool {
+
+	@NotNull private final DirectByteBufferPoolConfig config;
+	@NotNull private final ConcurrentMap<Integer, GenericObjectPool<ByteBuffer>> poolsBySizeClass = new ConcurrentHashMap<>();
+	@Nullable private volatile Future<Void> shutdownSequence;
+
+	public DirectByteBufferPool(@NotNull final DirectByteBufferPoolConfig config) {
+		this.config = requireNonNull(config, "config");
+	}
+
+	/**
+	 * Delegates to {@link #claim(int, Timeout)} with unlimited timeout.
+	 */
+	@NotNull
+	@SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "False positive")
+	public PoolableObject<ByteBuffer> claim(final int minCapacity) throws InterruptedException {
+		return requireNonNull(claim(minCapacity, WAIT_FOREVER));
+	}
+
+	/**
+	 * Claims a buffer from the smallest size class with at least the given capacity, waiting for one if that size class is at its max pool size.
+	 *
+	 * @throws IllegalArgumentException if the capacity is larger than the largest size class
+	 * @throws IllegalStateException    if the pool has been shut down
+	 */
+	@Nullable
+	public PoolableObject<ByteBuffer> claim(final int minCapacity, @NotNull final Timeout timeout) throws InterruptedException {
+		if (shutdownSequence != null) {
+			throw new IllegalStateException("Pool has been shutdown");
+		}
+		return poolFor(sizeClassFor(minCapacity)).claim(timeout);
+	}
+
+	/**
+	 * @return The buffer size of the smallest size class that fits the given capacity.
+	 */
+	int sizeClassFor(final int minCapacity) {
+		if (minCapacity < 0 || minCapacity > config.getMaxBufferSize()) {
+			throw new IllegalArgumentException("Buffer capacity should be between 0 and " + config.getMaxBufferSize() + ", was: " + minCapacity);
+		}
+		return Math.max(config.getMinBufferSize(), minCapacity <= 1 ? 1 : Integer.highestOneBit(minCapacity - 1) << 1);
+	}
+
+	/**
+	 * Size classes are created under the same lock {@link #shutdown()} collects them with, so none is created after it and left running.
+	 */
+	@NotNull
+	private GenericObjectPool<ByteBuffer> poolFor(final int sizeClass) {
+		final GenericObjectPool<ByteBuffer> existingPool = poolsBySizeClass.get(sizeClass);
+		if (existingPool != null) {
+			return existingPool;
+		}
+		synchronized (this) {
+			if (shutdownSequence != null) {
+				throw new IllegalStateException("Pool has been shutdown");
+			}
+			return poolsBySizeClass.computeIfAbsent(sizeClass, bufferSize -> new GenericObjectPool<>(PoolConfig.<ByteBuffer>builder()
+					.maxPoolsize(config.getMaxBuffersPerSizeClass())
+					.threadFactory(config.getThreadFactory())
+					.build(), new SizeClassAllocator(bufferSize, config.getSlabSize())));
+		}
+	}
+
+	/**
+	 * @return The metrics of each size class used so far, by buffer size. A size class's current weight is the number of bytes it has allocated.
+	 */
+	@NotNull
+	public Map<Integer, PoolMetrics> getMetricsBySizeClass() {
+		final Map<Integer, PoolMetrics> metricsBySizeClass = new TreeMap<>();
+		for (final Map.Entry<Integer, GenericObjectPool<ByteBuffer>> pool : poolsBySizeClass.entrySet()) {
+			metricsBySizeClass.put(pool.getKey(), pool.getValue().getPoolMetrics());
+		}
+		return Collections.unmodifiableMap(metricsBySizeClass);
+	}
+
+	/**
+	 * Shuts down the pools of all size classes, see {@link GenericObjectPool#shutdown()}.
+	 */
+	@NotNull
+	public synchronized Future<Void> shutdown() {
+		if (shutdownSequence == null) {
+			final List<Future<Void>> poolShutdowns = new ArrayList<>();
+			for (final GenericObjectPool<ByteBuffer> pool : poolsBySizeClass.values()) {
+				poolShutdowns.add(pool.shutdown());
+			}
+			shutdownSequence = CompletableFuture.runAsync(() -> {
+				for (final Future<Void> poolShutdown : poolShutdowns) {
+					try {
+						poolShutdown.get();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					} catch (ExecutionException e) {
+						throw new IllegalStateException("Shutting down a size class failed", e.getCause());
+					}
+				}
+			});
+		}
+		//noinspection ConstantConditions
+		return shutdownSequence;
+	}
+}
@@ -0,0 +1,65 @@
+package org.bbottema.genericobjectpool.bytebuffer;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Builder;
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+@Builder
+@Value
+@SuppressFBWarnings(value = "RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE", justification = "Generated code")
+public class DirectByteBufferPoolConfig {
+	private static final int DEFAULT_MIN_BUFFER_SIZE = 4 * 1024;
+	private static final int DEFAULT_MAX_BUFFER_SIZE = 16 * 1024 * 1024;
+	private static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+	/**
+	 * The smallest size class, a power of two. Defaults to 4 KB.
+	 */
+	private final int minBufferSize;
+	/**
+	 * The largest size class, a power of two. Larger buffers can't be claimed. Defaults to 16 MB.
+	 */
+	private final int maxBufferSize;
+	/**
+	 * The max pool size of each size class.
+	 */
+	private final int maxBuffersPerSizeClass;
+	/**
+	 * Size classes smaller than this are sliced from direct buffers of this size, rather than each being allocated separately, a power of two. A slab is freed
+	 * once all of its slices have been deallocated. Defaults to 1 MB.
+	 */
+	private final int slabSize;
+	/**
+	 * Optional custom thread factory for the housekeeping threads of the size classes' pools, see
+	 * {@link org.bbottema.genericobjectpool.PoolConfig#getThreadFactory()}.
+	 */
+	@NotNull private final ThreadFactory threadFactory;
+
+	@SuppressWarnings("unused")
+	private DirectByteBufferPoolConfig(int minBufferSize, int maxBufferSize, int maxBuffersPerSizeClass, int slabSize, @Nullable ThreadFactory threadFactory) {
+		this.minBufferSize = (minBufferSize != 0) ? minBufferSize : DEFAULT_MIN_BUFFER_SIZE;
+		this.maxBufferSize = (maxBufferSize != 0) ? maxBufferSize : DEFAULT_MAX_BUFFER_SIZE;
+		this.maxBuffersPerSizeClass = maxBuffersPerSizeClass;
+		this.slabSize = (slabSize != 0) ? slabSize : DEFAULT_SLAB_SIZE;
+		this.threadFactory = (threadFactory != null) ? threadFactory : Executors.defaultThreadFactory();
+
+		if (!isPowerOfTwo(this.minBufferSize) || !isPowerOfTwo(this.maxBufferSize) || !isPowerOfTwo(this.slabSize)) {
+			throw new IllegalArgumentException("Buffer and slab sizes should be powers of two");
+		}
+		if (this.minBufferSize > this.maxBufferSize) {
+			throw new IllegalArgumentException("Min buffer size cannot be bigger than the max buffer size");
+		}
+		if (maxBuffersPerSizeClass <= 0) {
+			throw new IllegalArgumentException("Size classes should have a max size of at least one buffer");
+		}
+	}
+
+	private static boolean isPowerOfTwo(final int size) {
+		return size > 0 && Integer.bitCount(size) == 1;
+	}
+}
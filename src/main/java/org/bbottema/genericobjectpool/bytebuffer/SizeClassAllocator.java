@@ -0,0 +1,115 @@
+package org.bbottema.genericobjectpool.bytebuffer;
+
+import org.bbottema.genericobjectpool.Allocator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Allocates the direct buffers of one size class. Buffers smaller than the slab size are sliced from larger slabs, and deallocated slices are handed out
+ * again before a new slice is carved. A slab is freed once none of its slices are in use, unless it is the slab new slices are still being carved from.
+ * <p>
+ * Buffers are identified by identity, as {@link ByteBuffer#equals(Object)} compares contents.
+ */
+class SizeClassAllocator extends Allocator<ByteBuffer> {
+
+	private final int bufferSize;
+	private final int slabSize;
+	/**
+	 * Guarded by this allocator, as buffers are allocated by claimers and the pool's allocation thread, and deallocated by its deallocation thread.
+	 */
+	@NotNull private final Map<ByteBuffer, Slab> slabsBySlice = new IdentityHashMap<>();
+	@NotNull private final Deque<ByteBuffer> freeSlices = new ArrayDeque<>();
+	@Nullable private Slab currentSlab;
+	private int slabCount;
+
+	SizeClassAllocator(final int bufferSize, final int slabSize) {
+		this.bufferSize = bufferSize;
+		this.slabSize = slabSize;
+	}
+
+	@NotNull
+	@Override
+	public synchronized ByteBuffer allocate() {
+		if (bufferSize >= slabSize) {
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+		final ByteBuffer freeSlice = freeSlices.poll();
+		if (freeSlice != null) {
+			//noinspection ConstantConditions
+			slabsBySlice.get(freeSlice).slicesInUse++;
+			return freeSlice;
+		}
+		if (currentSlab == null || currentSlab.memory.remaining() < bufferSize) {
+			currentSlab = new Slab(ByteBuffer.allocateDirect(slabSize));
+			slabCount++;
+		}
+		final ByteBuffer slice = currentSlab.carve(bufferSize);
+		slabsBySlice.put(slice, currentSlab);
+		return slice;
+	}
+
+	/**
+	 * Clears the buffer, so the next claimer gets it with its full capacity available.
+	 */
+	@Override
+	public void deallocateForReuse(final ByteBuffer buffer) {
+		buffer.clear();
+	}
+
+	@Override
+	public synchronized void deallocate(final ByteBuffer buffer) {
+		final Slab slab = slabsBySlice.get(buffer);
+		if (slab == null) {
+			DirectBufferCleaner.free(buffer);
+			return;
+		}
+		slab.slicesInUse--;
+		if (slab.slicesInUse == 0 && slab != currentSlab) {
+			freeSlices.removeIf(freeSlice -> slabsBySlice.get(freeSlice) == slab);
+			slabsBySlice.values().removeIf(sliceSlab -> sliceSlab == slab);
+			DirectBufferCleaner.free(slab.memory);
+			slabCount--;
+		} else {
+			buffer.clear();
+			freeSlices.push(buffer);
+		}
+	}
+
+	@Override
+	public long weigh(final ByteBuffer buffer) {
+		return buffer.capacity();
+	}
+
+	/**
+	 * @return The number of slabs allocated and not freed yet.
+	 */
+	synchronized int getSlabCount() {
+		return slabCount;
+	}
+
+	private static final class Slab {
+		@NotNull private final ByteBuffer memory;
+		private int slicesInUse;
+
+		private Slab(@NotNull final ByteBuffer memory) {
+			this.memory = memory;
+		}
+
+		@NotNull
+		ByteBuffer carve(final int size) {
+			final int offset = memory.position();
+			memory.limit(offset + size);
+			final ByteBuffer slice = memory.slice();
+			memory.position(offset + size);
+			memory.limit(memory.capacity());
+			slicesInUse++;
+			return slice;
+		}
+	}
+}
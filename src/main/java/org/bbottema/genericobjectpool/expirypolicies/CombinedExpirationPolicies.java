@@ -16,6 +16,13 @@ public class CombinedExpirationPolicies<T> implements ExpirationPolicy<T> {
 	@NotNull
 	private final Set<ExpirationPolicy<T>> expirationPolicies;
 	
+	@Override
+	public void beforeExpiryCheck(long currentTimeMs, int peakClaimed, int currentlyAllocated) {
+		for (ExpirationPolicy<T> expirationPolicy : expirationPolicies) {
+			expirationPolicy.beforeExpiryCheck(currentTimeMs, peakClaimed, currentlyAllocated);
+		}
+	}
+
 	@Override
 	public boolean hasExpired(@NotNull PoolableObject<T> poolableObject) {
 		boolean expired = false;
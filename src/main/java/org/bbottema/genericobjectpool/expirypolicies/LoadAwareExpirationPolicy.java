@@ -0,0 +1,103 @@
+package org.bbottema.genericobjectpool.expirypolicies;
+
+import org.bbottema.genericobjectpool.ExpirationPolicy;
+import org.bbottema.genericobjectpool.PoolableObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decorates another expiration policy, so that idle objects only expire as far as the pool stays at or above recent demand: the highest number of objects
+ * claimed at the same time within a sliding window. This keeps the pool from dropping to its core size after a short quiet period, only to reallocate
+ * objects on the request path when the next wave of traffic arrives.
+ * <p>
+ * Once a peak slides out of the window, the demand level can decay gradually rather than drop right away: each further window length, the part of the
+ * demand level above the current window's peak shrinks by the given decay fraction. A decay of 1 follows the window's peak exactly, 0 never shrinks the pool
+ * below the highest demand seen.
+ * <p>
+ * Relies on the pool calling {@link #beforeExpiryCheck(long, int, int)}, without it no objects expire.
+ */
+public class LoadAwareExpirationPolicy<T> implements ExpirationPolicy<T> {
+
+	@NotNull private final ExpirationPolicy<T> expirationPolicy;
+	private final long demandWindowMs;
+	private final double decayPerWindow;
+
+	/**
+	 * Peaks within the window in descending order (so the first one is the window's peak), only accessed by the pool's housekeeping thread.
+	 */
+	@NotNull private final ArrayDeque<PeakSample> peakSamples = new ArrayDeque<>();
+	private double demandLevel;
+	private long lastExpiryCheckMs = -1;
+	@NotNull private final AtomicInteger expirableObjects = new AtomicInteger();
+
+	/**
+	 * Delegates to {@link #LoadAwareExpirationPolicy(ExpirationPolicy, long, TimeUnit, double)} without gradual decay.
+	 */
+	public LoadAwareExpirationPolicy(@NotNull ExpirationPolicy<T> expirationPolicy, long demandWindow, TimeUnit unit) {
+		this(expirationPolicy, demandWindow, unit, 1);
+	}
+
+	/**
+	 * @param expirationPolicy Decides which idle objects are eligible for expiry in the first place, for example a {@link TimeoutSinceLastAllocationExpirationPolicy}.
+	 * @param demandWindow     How long a peak in concurrent claims keeps the pool from shrinking below it.
+	 * @param decayPerWindow   Fraction (0.0 - 1.0) by which the demand level decays towards the window's peak per window length.
+	 */
+	public LoadAwareExpirationPolicy(@NotNull ExpirationPolicy<T> expirationPolicy, long demandWindow, TimeUnit unit, double decayPerWindow) {
+		if (demandWindow < 1) {
+			throw new IllegalArgumentException("Demand window cannot be less than 1");
+		}
+		if (decayPerWindow < 0 || decayPerWindow > 1) {
+			throw new IllegalArgumentException("Decay per window should be between 0 and 1");
+		}
+		this.expirationPolicy = requireNonNull(expirationPolicy, "expirationPolicy");
+		this.demandWindowMs = unit.toMillis(demandWindow);
+		this.decayPerWindow = decayPerWindow;
+	}
+
+	@Override
+	public void beforeExpiryCheck(long currentTimeMs, int peakClaimed, int currentlyAllocated) {
+		while (!peakSamples.isEmpty() && peakSamples.peekLast().peakClaimed <= peakClaimed) {
+			peakSamples.pollLast();
+		}
+		peakSamples.addLast(new PeakSample(currentTimeMs, peakClaimed));
+		while (peakSamples.peekFirst().timeMs <= currentTimeMs - demandWindowMs) {
+			peakSamples.pollFirst();
+		}
+
+		final int windowPeak = peakSamples.peekFirst().peakClaimed;
+		final double decayedDemandLevel = lastExpiryCheckMs < 0 ? 0
+				: demandLevel * Math.pow(1 - decayPerWindow, (double) (currentTimeMs - lastExpiryCheckMs) / demandWindowMs);
+		demandLevel = Math.max(windowPeak, decayedDemandLevel);
+		lastExpiryCheckMs = currentTimeMs;
+
+		expirableObjects.set(Math.max(0, currentlyAllocated - (int) Math.ceil(demandLevel)));
+		expirationPolicy.beforeExpiryCheck(currentTimeMs, peakClaimed, currentlyAllocated);
+	}
+
+	@Override
+	public boolean hasExpired(@NotNull PoolableObject<T> poolableObject) {
+		return expirationPolicy.hasExpired(poolableObject) && expirableObjects.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0;
+	}
+
+	/**
+	 * @return The number of objects the pool currently needs according to recent demand, as of the last expiry check.
+	 */
+	public int getDemandLevel() {
+		return (int) Math.ceil(demandLevel);
+	}
+
+	private static final class PeakSample {
+		private final long timeMs;
+		private final int peakClaimed;
+
+		private PeakSample(long timeMs, int peakClaimed) {
+			this.timeMs = timeMs;
+			this.peakClaimed = peakClaimed;
+		}
+	}
+}
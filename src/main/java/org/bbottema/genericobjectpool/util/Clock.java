@@ -0,0 +1,19 @@
+package org.bbottema.genericobjectpool.util;
+
+/**
+ * Source of time for the pool's timestamps, such as the ones behind {@link org.bbottema.genericobjectpool.PoolableObject#ageMs()} and
+ * {@link org.bbottema.genericobjectpool.PoolableObject#idleAgeMs()}. Readings are only meaningful relative to each other, not as wall-clock time.
+ *
+ * @see CoarseClock
+ * @see ManualClock
+ */
+public interface Clock {
+	long currentTimeMs();
+	
+	/**
+	 * Called regularly by the pool's housekeeping threads, so clocks that cache the time can refresh it.
+	 */
+	default void tick() {
+		// overridable hook
+	}
+}
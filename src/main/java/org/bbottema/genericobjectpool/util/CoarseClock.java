@@ -0,0 +1,26 @@
+package org.bbottema.genericobjectpool.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monotonic clock that only reads the system timer when ticked by the pool's housekeeping threads, so reading it in loops is as cheap as reading a field. Its
+ * resolution is a few milliseconds and it is not affected by wall-clock changes. This is the default clock.
+ */
+public class CoarseClock implements Clock {
+	
+	private volatile long currentTimeMs = readSystemTimerMs();
+	
+	@Override
+	public long currentTimeMs() {
+		return currentTimeMs;
+	}
+	
+	@Override
+	public void tick() {
+		currentTimeMs = readSystemTimerMs();
+	}
+	
+	private static long readSystemTimerMs() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+}
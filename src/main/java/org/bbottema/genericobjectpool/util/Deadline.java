@@ -0,0 +1,31 @@
+package org.bbottema.genericobjectpool.util;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time on the {@link System#nanoTime()} timeline, so a caller can hand its remaining time budget on to a claim, rather than a new timeout.
+ */
+@Value
+@SuppressFBWarnings(value = "RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE", justification = "Generated code")
+public final class Deadline {
+	private final long nanoTime;
+
+	public static Deadline after(final long duration, final TimeUnit timeUnit) {
+		// wrapping arithmetic is fine, as deadlines are only ever compared by their difference with the current time
+		return new Deadline(System.nanoTime() + timeUnit.toNanos(duration));
+	}
+
+	public static Deadline after(final Timeout timeout) {
+		return after(timeout.getDuration(), timeout.getTimeUnit());
+	}
+
+	/**
+	 * @return The nanoseconds left until the deadline, zero or negative if it has passed.
+	 */
+	public long remainingNanos() {
+		return nanoTime - System.nanoTime();
+	}
+}
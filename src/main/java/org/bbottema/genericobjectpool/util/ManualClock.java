@@ -0,0 +1,24 @@
+package org.bbottema.genericobjectpool.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock that only moves when told to, so tests can make objects expire (or become idle for long enough) without sleeping.
+ */
+@SuppressWarnings("unused")
+public class ManualClock implements Clock {
+	
+	private volatile long currentTimeMs;
+	
+	@Override
+	public long currentTimeMs() {
+		return currentTimeMs;
+	}
+	
+	public synchronized void advance(final long duration, final TimeUnit timeUnit) {
+		if (duration < 0) {
+			throw new IllegalArgumentException("A clock can't go back in time");
+		}
+		currentTimeMs += timeUnit.toMillis(duration);
+	}
+}
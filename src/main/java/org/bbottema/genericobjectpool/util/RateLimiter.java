@@ -0,0 +1,40 @@
+package org.bbottema.genericobjectpool.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Hands out permits at a steady rate, so deferred work is spread evenly over time rather than done in batches. After a quiet period, at most a tenth of a
+ * second worth of permits (and at least one) is available at once.
+ * <p>
+ * Not thread-safe, meant to be used by one of the pool's housekeeping threads.
+ */
+public class RateLimiter {
+
+	private static final double BURST_SECONDS = 0.1;
+
+	@NotNull private final Clock clock;
+	private final double permitIntervalMs;
+	private final double burstMs;
+	private double nextPermitMs = Double.NEGATIVE_INFINITY;
+
+	public RateLimiter(final double permitsPerSecond, @NotNull final Clock clock) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException("Permits per second should be positive");
+		}
+		this.clock = clock;
+		this.permitIntervalMs = 1000 / permitsPerSecond;
+		this.burstMs = (Math.max(1, permitsPerSecond * BURST_SECONDS) - 1) * permitIntervalMs;
+	}
+
+	/**
+	 * @return Whether a permit was available (and is now taken).
+	 */
+	public boolean tryAcquire() {
+		final long nowMs = clock.currentTimeMs();
+		if (nowMs < nextPermitMs) {
+			return false;
+		}
+		nextPermitMs = Math.max(nextPermitMs, nowMs - burstMs) + permitIntervalMs;
+		return true;
+	}
+}
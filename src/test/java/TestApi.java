@@ -5,9 +5,14 @@ import org.bbottema.genericobjectpool.Allocator;
 import org.bbottema.genericobjectpool.GenericObjectPool;
 import org.bbottema.genericobjectpool.PoolConfig;
 import org.bbottema.genericobjectpool.PoolMetrics;
+import org.bbottema.genericobjectpool.PoolSaturatedException;
 import org.bbottema.genericobjectpool.PoolableObject;
+import org.bbottema.genericobjectpool.expirypolicies.LoadAwareExpirationPolicy;
 import org.bbottema.genericobjectpool.expirypolicies.TimeoutSinceCreationExpirationPolicy;
+import org.bbottema.genericobjectpool.expirypolicies.TimeoutSinceLastAllocationExpirationPolicy;
+import org.bbottema.genericobjectpool.util.ManualClock;
 import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.bbottema.genericobjectpool.util.Timeout;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 
@@ -388,6 +393,166 @@ public class TestApi {
         pool.shutdown();
     }
 
+    @Test
+    public void testManualClockDrivesObjectAges() throws InterruptedException {
+        final ManualClock clock = new ManualClock();
+        GenericObjectPool<AtomicReference<Integer>> pool = new GenericObjectPool<>(PoolConfig.<AtomicReference<Integer>>builder()
+                .maxPoolsize(1)
+                .clock(clock)
+                .build(), new MyAllocator());
+
+        PoolableObject<AtomicReference<Integer>> obj = pool.claim();
+        clock.advance(1, TimeUnit.MINUTES);
+        assertThat(obj.ageMs()).isEqualTo(TimeUnit.MINUTES.toMillis(1));
+        assertThat(obj.allocationAgeMs()).isEqualTo(TimeUnit.MINUTES.toMillis(1));
+        assertThat(obj.idleAgeMs()).isZero();
+
+        obj.release();
+        clock.advance(30, TimeUnit.SECONDS);
+        assertThat(obj.idleAgeMs()).isEqualTo(TimeUnit.SECONDS.toMillis(30));
+        assertThat(obj.ageMs()).isEqualTo(TimeUnit.SECONDS.toMillis(90));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testExpiryWithManualClock() {
+        final ManualClock clock = new ManualClock();
+        GenericObjectPool<AtomicReference<Integer>> pool = new GenericObjectPool<>(PoolConfig.<AtomicReference<Integer>>builder()
+                .corePoolsize(2)
+                .maxPoolsize(2)
+                .expirationPolicy(new TimeoutSinceCreationExpirationPolicy<AtomicReference<Integer>>(1, TimeUnit.HOURS))
+                .clock(clock)
+                .build(), new MyAllocator());
+
+        assertTrue(waitAndCheck(pool, 100));
+        assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(2);
+
+        clock.advance(2, TimeUnit.HOURS);
+        var slept = 0;
+        while (pool.getPoolMetrics().getTotalAllocated() < 4 && slept < 250) {
+            SleepUtil.sleep(5);
+            slept += 5;
+        }
+        assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(4);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testLeakedObjectIsReportedAndReclaimed() throws InterruptedException {
+        final PoolConfig<AtomicReference<Integer>> poolConfig = PoolConfig.<AtomicReference<Integer>>builder()
+                .maxPoolsize(1)
+                .leakDetectionThreshold(new Timeout(50, TimeUnit.MILLISECONDS))
+                .leakDetectionStackTraceSampleRate(1)
+                .reclaimLeakedObjects(true)
+                .build();
+        GenericObjectPool<AtomicReference<Integer>> pool = new GenericObjectPool<>(poolConfig, new MyAllocator());
+
+        final PoolableObject<AtomicReference<Integer>> leakedObject = pool.claim();
+        final PoolableObject<AtomicReference<Integer>> replacement = pool.claim(1, TimeUnit.SECONDS);
+
+        assertThat(replacement).isNotNull();
+        assertThat(replacement).isNotSameAs(leakedObject);
+        assertThat(pool.getPoolMetrics().getTotalLeaksDetected()).isEqualTo(1);
+        assertThat(pool.getPoolMetrics().getCurrentlyClaimed()).isEqualTo(1);
+
+        leakedObject.release(); // too late, no effect
+        assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+
+        requireNonNull(replacement).release();
+        pool.shutdown();
+    }
+
+    @Test
+    public void testLeakedObjectIsReportedOnlyOnce() throws InterruptedException {
+        final PoolConfig<AtomicReference<Integer>> poolConfig = PoolConfig.<AtomicReference<Integer>>builder()
+                .maxPoolsize(1)
+                .leakDetectionThreshold(new Timeout(20, TimeUnit.MILLISECONDS))
+                .build();
+        GenericObjectPool<AtomicReference<Integer>> pool = new GenericObjectPool<>(poolConfig, new MyAllocator());
+
+        final PoolableObject<AtomicReference<Integer>> leakedObject = pool.claim();
+        assertThat(pool.claim(250, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(pool.getPoolMetrics().getTotalLeaksDetected()).isEqualTo(1);
+
+        leakedObject.release();
+        assertThat(pool.claim(100, TimeUnit.MILLISECONDS)).isSameAs(leakedObject);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testLoadAwareExpiryKeepsObjectsNeededByRecentDemand() throws InterruptedException {
+        final PoolConfig<AtomicReference<Integer>> poolConfig = PoolConfig.<AtomicReference<Integer>>builder()
+                .maxPoolsize(5)
+                .expirationPolicy(new LoadAwareExpirationPolicy<>(new TimeoutSinceLastAllocationExpirationPolicy<AtomicReference<Integer>>(10, TimeUnit.MILLISECONDS), 1, TimeUnit.HOURS))
+                .build();
+        GenericObjectPool<AtomicReference<Integer>> pool = new GenericObjectPool<>(poolConfig, new MyAllocator());
+
+        final PoolableObject<AtomicReference<Integer>> obj1 = pool.claim();
+        final PoolableObject<AtomicReference<Integer>> obj2 = pool.claim();
+        final PoolableObject<AtomicReference<Integer>> obj3 = pool.claim();
+        obj1.release();
+        obj2.release();
+        obj3.release();
+
+        SleepUtil.sleep(200);
+        assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(3);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testChurnRateLimitSpreadsExpiryAndReplacement() {
+        final ManualClock clock = new ManualClock();
+        final PoolConfig<AtomicReference<Integer>> poolConfig = PoolConfig.<AtomicReference<Integer>>builder()
+                .corePoolsize(10)
+                .maxPoolsize(10)
+                .expirationPolicy(new TimeoutSinceCreationExpirationPolicy<AtomicReference<Integer>>(1, TimeUnit.SECONDS))
+                .maxChurnPerSecond(2)
+                .clock(clock)
+                .build();
+        GenericObjectPool<AtomicReference<Integer>> pool = new GenericObjectPool<>(poolConfig, new MyAllocator());
+        assertTrue(waitAndCheck(pool, 500, 10));
+
+        clock.advance(1, TimeUnit.SECONDS); // all objects expire at once
+        SleepUtil.sleep(200);
+        assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(10);
+        assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(11);
+
+        clock.advance(500, TimeUnit.MILLISECONDS);
+        SleepUtil.sleep(200);
+        assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(10);
+        assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(12);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testClaimIsRejectedWhenMaxWaitersReached() throws Exception {
+        final PoolConfig<AtomicReference<Integer>> poolConfig = PoolConfig.<AtomicReference<Integer>>builder()
+                .maxPoolsize(1)
+                .maxWaiters(1)
+                .build();
+        final GenericObjectPool<AtomicReference<Integer>> pool = new GenericObjectPool<>(poolConfig, new MyAllocator());
+        final PoolableObject<AtomicReference<Integer>> claimedObject = requireNonNull(pool.claim());
+
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        Future<PoolableObject<AtomicReference<Integer>>> waitingClaim = es.submit(() -> pool.claim(1, TimeUnit.SECONDS));
+        var slept = 0;
+        while (pool.getPoolMetrics().getCurrentlyWaitingCount() == 0 && slept < 500) {
+            SleepUtil.sleep(5);
+            slept += 5;
+        }
+        assertThat(pool.getPoolMetrics().getCurrentlyWaitingCount()).isEqualTo(1);
+
+        assertThatThrownBy(() -> pool.claim(1, TimeUnit.SECONDS)).isInstanceOf(PoolSaturatedException.class);
+        assertThatThrownBy(() -> pool.claimMatching(o -> true, new Timeout(1, TimeUnit.SECONDS))).isInstanceOf(PoolSaturatedException.class);
+        assertThat(pool.getPoolMetrics().getTotalRejected()).isEqualTo(2);
+
+        claimedObject.release();
+        assertThat(waitingClaim.get(1, TimeUnit.SECONDS)).isSameAs(claimedObject);
+        assertThat(pool.getPoolMetrics().getCurrentlyWaitingCount()).isZero();
+        es.shutdown();
+        pool.shutdown();
+    }
+
     private boolean waitAndCheck(GenericObjectPool<AtomicReference<Integer>> pool, int maxSleep) {
         return waitAndCheck(pool, maxSleep, 2);
     }
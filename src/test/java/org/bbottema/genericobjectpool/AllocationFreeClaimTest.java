@@ -0,0 +1,104 @@
+package org.bbottema.genericobjectpool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+/**
+ * Verifies the steady-state claim/release path doesn't allocate, by measuring the bytes allocated by the claiming thread itself (so the pool's own
+ * housekeeping threads don't count). Measured in a fresh JVM, as inline mocking of pool classes by other tests instruments them with allocating code.
+ */
+public class AllocationFreeClaimTest {
+
+	private static final int WARMUP_OPERATIONS = 20_000;
+	private static final int MEASURED_OPERATIONS = 100_000;
+	private static final String RESULT_PREFIX = "bytesPerOperation=";
+
+	@Test
+	public void testClaimAndReleaseDoNotAllocate() throws Exception {
+		assertThat(measureBytesPerOperationInFreshJvm("claimAndRelease")).isZero();
+	}
+
+	@Test
+	public void testWaitingForAnObjectDoesNotAllocate() throws Exception {
+		assertThat(measureBytesPerOperationInFreshJvm("waitForExhaustedPool")).isZero();
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		final long bytesPerOperation = args[0].equals("claimAndRelease") ? measureClaimAndRelease() : measureWaitForExhaustedPool();
+		System.out.println(RESULT_PREFIX + bytesPerOperation);
+		System.exit(0);
+	}
+
+	private static long measureBytesPerOperationInFreshJvm(final String scenario) throws IOException, InterruptedException {
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), AllocationFreeClaimTest.class.getName(), scenario)
+				.redirectErrorStream(true)
+				.start();
+		Long bytesPerOperation = null;
+		try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			for (String line = output.readLine(); line != null; line = output.readLine()) {
+				if (line.startsWith(RESULT_PREFIX)) {
+					bytesPerOperation = Long.parseLong(line.substring(RESULT_PREFIX.length()));
+				}
+			}
+		}
+		assertThat(process.waitFor(1, TimeUnit.MINUTES)).isTrue();
+		assertThat(bytesPerOperation).as("measurement result").isNotNull();
+		return bytesPerOperation;
+	}
+
+	private static long measureClaimAndRelease() throws InterruptedException {
+		final GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(2).build(), createAllocator("a"));
+		claimAndRelease(pool, WARMUP_OPERATIONS);
+
+		final long allocatedBefore = threadAllocatedBytes();
+		claimAndRelease(pool, MEASURED_OPERATIONS);
+		return (threadAllocatedBytes() - allocatedBefore) / MEASURED_OPERATIONS;
+	}
+
+	private static long measureWaitForExhaustedPool() throws InterruptedException {
+		final GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), createAllocator("a"));
+		pool.claim();
+		final int operations = MEASURED_OPERATIONS / 10;
+		waitForExhaustedPool(pool, operations);
+
+		final long allocatedBefore = threadAllocatedBytes();
+		final int timedOut = waitForExhaustedPool(pool, operations);
+		final long bytesPerOperation = (threadAllocatedBytes() - allocatedBefore) / operations;
+		return timedOut == operations ? bytesPerOperation : -1;
+	}
+
+	private static void claimAndRelease(final GenericObjectPool<String> pool, final int operations) throws InterruptedException {
+		for (int i = 0; i < operations; i++) {
+			final PoolableObject<String> first = pool.claim();
+			final PoolableObject<String> second = pool.claim(1, TimeUnit.SECONDS);
+			second.release();
+			first.release();
+		}
+	}
+
+	private static int waitForExhaustedPool(final GenericObjectPool<String> pool, final int operations) throws InterruptedException {
+		int timedOut = 0;
+		for (int i = 0; i < operations; i++) {
+			if (pool.claim(1, TimeUnit.NANOSECONDS) == null) {
+				timedOut++;
+			}
+		}
+		return timedOut;
+	}
+
+	private static long threadAllocatedBytes() {
+		final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
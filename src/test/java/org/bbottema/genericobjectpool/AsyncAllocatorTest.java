@@ -0,0 +1,202 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncAllocatorTest {
+
+	private final List<CompletableFuture<String>> allocations = new CopyOnWriteArrayList<>();
+	private final List<CompletableFuture<Void>> releases = new CopyOnWriteArrayList<>();
+	private final AsyncAllocator<String> asyncAllocator = new AsyncAllocator<String>() {
+		@NotNull
+		@Override
+		public CompletableFuture<String> allocateAsync() {
+			CompletableFuture<String> allocation = new CompletableFuture<>();
+			allocations.add(allocation);
+			return allocation;
+		}
+
+		@NotNull
+		@Override
+		public CompletableFuture<Void> deallocateForReuseAsync(String object) {
+			CompletableFuture<Void> release = new CompletableFuture<>();
+			releases.add(release);
+			return release;
+		}
+	};
+	private ExecutorService es;
+
+	@BeforeEach
+	public void setup() {
+		es = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		es.shutdownNow();
+	}
+
+	@Test
+	public void testAllocationsForWaitingClaimersAreInFlightAtTheSameTime() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(3).build(), asyncAllocator);
+
+		Future<PoolableObject<String>> claim1 = submitClaim(pool);
+		Future<PoolableObject<String>> claim2 = submitClaim(pool);
+		Future<PoolableObject<String>> claim3 = submitClaim(pool);
+		waitForAllocations(3);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(3);
+		assertThat(claim1.isDone() || claim2.isDone() || claim3.isDone()).isFalse();
+
+		for (int i = 0; i < 3; i++) {
+			allocations.get(i).complete("object " + i);
+		}
+		assertThat(claim1.get(1, TimeUnit.SECONDS)).isNotNull();
+		assertThat(claim2.get(1, TimeUnit.SECONDS)).isNotNull();
+		assertThat(claim3.get(1, TimeUnit.SECONDS)).isNotNull();
+		assertThat(pool.getPoolMetrics().getCurrentlyClaimed()).isEqualTo(3);
+		assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(3);
+		assertThat(allocations).hasSize(3);
+	}
+
+	@Test
+	public void testFailedAllocationIsRetriedForWaitingClaimer() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), asyncAllocator);
+
+		Future<PoolableObject<String>> claim = submitClaim(pool);
+		waitForAllocations(1);
+		allocations.get(0).completeExceptionally(new IllegalStateException("connection refused"));
+		waitForAllocations(2);
+		assertThat(claim.isDone()).isFalse();
+
+		allocations.get(1).complete("object");
+		assertThat(claim.get(1, TimeUnit.SECONDS).getAllocatedObject()).isEqualTo("object");
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+	}
+
+	@Test
+	public void testReleasedObjectIsClaimableOnlyOnceAsyncReleaseCompleted() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), asyncAllocator);
+		Future<PoolableObject<String>> claim = submitClaim(pool);
+		waitForAllocations(1);
+		allocations.get(0).complete("object");
+		PoolableObject<String> obj = claim.get(1, TimeUnit.SECONDS);
+
+		obj.release();
+		assertThat(releases).hasSize(1);
+		assertThat(pool.claim(50, TimeUnit.MILLISECONDS)).isNull();
+
+		releases.get(0).complete(null);
+		assertThat(pool.claim(50, TimeUnit.MILLISECONDS)).isSameAs(obj);
+	}
+
+	@Test
+	public void testAlreadyFailedAllocationsAreRetriedWithBackoffUntilTheAllocatorRecovers() throws Exception {
+		final AtomicInteger attempts = new AtomicInteger();
+		final AtomicBoolean failing = new AtomicBoolean(true);
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), new AsyncAllocator<String>() {
+			@NotNull
+			@Override
+			public CompletableFuture<String> allocateAsync() {
+				attempts.incrementAndGet();
+				CompletableFuture<String> allocation = new CompletableFuture<>();
+				if (failing.get()) {
+					allocation.completeExceptionally(new IllegalStateException("server unavailable"));
+				} else {
+					allocation.complete("object");
+				}
+				return allocation;
+			}
+		});
+
+		assertThat(pool.claim(100, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(attempts.get()).isBetween(1, 10); // backing off rather than retrying on the claiming thread
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isZero();
+
+		failing.set(false);
+		PoolableObject<String> obj = pool.claim(2, TimeUnit.SECONDS);
+		assertThat(obj).isNotNull();
+		assertThat(obj.getAllocatedObject()).isEqualTo("object");
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(1);
+		obj.release();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testAllocationThatCannotBeAddedIsRetriedForWaitingClaimer() throws Exception {
+		final AtomicInteger attempts = new AtomicInteger();
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), new AsyncAllocator<String>() {
+			@NotNull
+			@Override
+			public CompletableFuture<String> allocateAsync() {
+				final String object = attempts.getAndIncrement() == 0 ? "bad" : "good";
+				return CompletableFuture.supplyAsync(() -> {
+					SleepUtil.sleep(20); // completes after the claimer started waiting
+					return object;
+				}, es);
+			}
+
+			@Override
+			public long weigh(String object) {
+				return object.equals("bad") ? -1 : 1;
+			}
+		});
+
+		PoolableObject<String> obj = pool.claim(2, TimeUnit.SECONDS);
+		assertThat(obj).isNotNull();
+		assertThat(obj.getAllocatedObject()).isEqualTo("good");
+		assertThat(attempts.get()).isEqualTo(2);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		obj.release();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testAllocationInFlightWhenRefreshStartsIsReplacedToo() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(2).build(), asyncAllocator);
+		Future<PoolableObject<String>> claim = submitClaim(pool);
+		waitForAllocations(1);
+
+		RefreshProgress progress = pool.refresh(1000);
+		assertThat(progress.getObjectsToReplace()).isEqualTo(1);
+		SleepUtil.sleep(50);
+		assertThat(allocations).hasSize(1); // not a claimed object yet, so no replacement allocated ahead
+
+		allocations.get(0).complete("old");
+		PoolableObject<String> old = claim.get(1, TimeUnit.SECONDS);
+		assertThat(old.getAllocatedObject()).isEqualTo("old");
+		waitForAllocations(2); // allocated ahead, as it was created with the configuration from before the refresh
+		allocations.get(1).complete("new");
+
+		old.release();
+		assertThat(progress.getCompletion().get(1, TimeUnit.SECONDS)).isNull();
+		assertThat(pool.claim(1, TimeUnit.SECONDS).getAllocatedObject()).isEqualTo("new");
+		pool.shutdown();
+	}
+
+	private Future<PoolableObject<String>> submitClaim(final GenericObjectPool<String> pool) {
+		return es.submit(() -> pool.claim(2, TimeUnit.SECONDS));
+	}
+
+	private void waitForAllocations(final int expectedAllocations) {
+		for (int slept = 0; allocations.size() < expectedAllocations && slept < 1000; slept += 5) {
+			SleepUtil.sleep(5);
+		}
+		assertThat(allocations).hasSize(expectedAllocations);
+	}
+}
@@ -0,0 +1,93 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.Timeout;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AttributeClaimTest {
+
+	private static final Timeout NO_WAIT = new Timeout(0, TimeUnit.MILLISECONDS);
+
+	@Test
+	public void testClaimByAttributeValue() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(6, 3);
+		awaitAllocated(pool, 6);
+
+		PoolableObject<String> dc1 = pool.claimMatching("datacenter", "dc1", NO_WAIT);
+		assertThat(dc1).isNotNull();
+		assertThat(dc1.getAttribute("datacenter")).isEqualTo("dc1");
+		assertThat(pool.claimMatching("datacenter", "dc1", NO_WAIT)).isNotNull();
+		assertThat(pool.claimMatching("datacenter", "dc1", NO_WAIT)).isNull();
+		assertThat(pool.claimMatching("datacenter", "dc3", NO_WAIT)).isNull();
+		assertThat(pool.claimMatching("schema", "dc0", NO_WAIT)).isNull();
+
+		dc1.release();
+		assertThat(pool.claimMatching("datacenter", "dc1", NO_WAIT)).isSameAs(dc1);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testIndexIsKeptUpToDateWithOtherClaims() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(2, 2);
+		awaitAllocated(pool, 2);
+
+		List<PoolableObject<String>> claimed = new ArrayList<>();
+		claimed.add(pool.claim());
+		claimed.add(pool.claimMatching(poolable -> true, NO_WAIT));
+		assertThat(pool.claimMatching("datacenter", "dc0", NO_WAIT)).isNull();
+		assertThat(pool.claimMatching("datacenter", "dc1", NO_WAIT)).isNull();
+
+		claimed.get(0).invalidate();
+		claimed.get(1).release();
+		PoolableObject<String> remaining = pool.claimMatching("datacenter", claimed.get(1).getAttribute("datacenter"), NO_WAIT);
+		assertThat(remaining).isSameAs(claimed.get(1));
+		pool.shutdown();
+	}
+
+	@Test
+	public void testObjectsWithoutAttributes() throws InterruptedException {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), ObjectPoolTestHelper.createAllocator("a"));
+		PoolableObject<String> obj = pool.claim();
+		assertThat(obj.getAttributes()).isEmpty();
+		obj.release();
+		assertThat(pool.claimMatching("datacenter", "dc0", NO_WAIT)).isNull();
+		pool.shutdown();
+	}
+
+	private static GenericObjectPool<String> createPool(int corePoolsize, int datacenters) {
+		final AtomicInteger counter = new AtomicInteger();
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.corePoolsize(corePoolsize)
+				.maxPoolsize(corePoolsize)
+				.build(), new Allocator<String>() {
+			@NotNull
+			@Override
+			public String allocate() {
+				return "connection " + counter.getAndIncrement();
+			}
+
+			@NotNull
+			@Override
+			public Map<String, Object> attributesOf(String object) {
+				int number = Integer.parseInt(object.substring("connection ".length()));
+				return Collections.singletonMap("datacenter", "dc" + number % datacenters);
+			}
+		});
+	}
+
+	private static void awaitAllocated(GenericObjectPool<?> pool, int allocated) throws InterruptedException {
+		for (int i = 0; i < 100 && pool.getPoolMetrics().getCurrentlyAllocated() < allocated; i++) {
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(allocated);
+	}
+}
@@ -0,0 +1,146 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BatchAllocatorTest {
+
+	@Test
+	public void testCorePoolIsFilledWithOneBatch() {
+		BatchRecordingAllocator allocator = new BatchRecordingAllocator(Integer.MAX_VALUE);
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.corePoolsize(5)
+				.maxPoolsize(10)
+				.build(), allocator);
+
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(5);
+		assertThat(allocator.batchSizes).containsExactly(5);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testPartialBatchesAreCompletedLater() {
+		BatchRecordingAllocator allocator = new BatchRecordingAllocator(2);
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.corePoolsize(5)
+				.maxPoolsize(10)
+				.build(), allocator);
+
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(5);
+		assertThat(allocator.batchSizes).containsExactly(5, 3);
+		assertThat(allocator.allocated.get()).isEqualTo(5);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testClaimerGrowingThePoolAllocatesForAllWaitersInOneBatch() throws Exception {
+		BatchRecordingAllocator allocator = new BatchRecordingAllocator(Integer.MAX_VALUE);
+		assertThat(claimAfterGrowingForTwoWaiters(allocator)).hasSize(2);
+		assertThat(allocator.batchSizes).containsExactly(2);
+	}
+
+	@Test
+	public void testClaimersAllocateOnlyForThemselvesWithoutBatchSupport() throws Exception {
+		final Set<Thread> allocatingThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+		Allocator<String> allocator = new Allocator<String>() {
+			@NotNull
+			@Override
+			public String allocate() {
+				allocatingThreads.add(Thread.currentThread());
+				return "object";
+			}
+		};
+		assertThat(claimAfterGrowingForTwoWaiters(allocator)).hasSize(2);
+		assertThat(allocatingThreads).hasSize(3); // the first claim, then each waiter for itself
+	}
+
+	/**
+	 * Exhausts a pool of one, queues two claimers and then makes room for both at once.
+	 */
+	private static List<PoolableObject<String>> claimAfterGrowingForTwoWaiters(Allocator<String> allocator) throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), allocator);
+		PoolableObject<String> obj = pool.claim();
+		ExecutorService es = Executors.newFixedThreadPool(2);
+		try {
+			Future<PoolableObject<String>> claim1 = es.submit(() -> pool.claim(2, TimeUnit.SECONDS));
+			Future<PoolableObject<String>> claim2 = es.submit(() -> pool.claim(2, TimeUnit.SECONDS));
+			for (int slept = 0; pool.getPoolMetrics().getCurrentlyWaitingCount() < 2 && slept < 1000; slept += 5) {
+				SleepUtil.sleep(5);
+			}
+			assertThat(pool.getPoolMetrics().getCurrentlyWaitingCount()).isEqualTo(2);
+			pool.resize(0, 3);
+			List<PoolableObject<String>> claimed = new ArrayList<>();
+			claimed.add(claim1.get(1, TimeUnit.SECONDS));
+			claimed.add(claim2.get(1, TimeUnit.SECONDS));
+			obj.release();
+			pool.shutdown();
+			return claimed;
+		} finally {
+			es.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testDefaultBatchReturnsObjectsCreatedBeforeFailure() {
+		final AtomicInteger calls = new AtomicInteger();
+		Allocator<String> allocator = new Allocator<String>() {
+			@NotNull
+			@Override
+			public String allocate() {
+				if (calls.incrementAndGet() > 2) {
+					throw new IllegalStateException("server refused connection");
+				}
+				return "object";
+			}
+		};
+
+		assertThat(allocator.allocateBatch(5)).hasSize(2);
+		assertThatThrownBy(() -> allocator.allocateBatch(5))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("server refused connection");
+	}
+
+	private static class BatchRecordingAllocator extends Allocator<String> {
+		private final int maxBatchSize;
+		private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+		private final AtomicInteger allocated = new AtomicInteger();
+
+		BatchRecordingAllocator(final int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+		}
+
+		@NotNull
+		@Override
+		public String allocate() {
+			return "object " + allocated.incrementAndGet();
+		}
+
+		@NotNull
+		@Override
+		public List<String> allocateBatch(final int n) {
+			batchSizes.add(n);
+			final List<String> objects = new ArrayList<>();
+			for (int i = 0; i < Math.min(n, maxBatchSize); i++) {
+				objects.add(allocate());
+			}
+			return objects;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class CapacityBudgetTest {
+
+	@Test
+	public void testPoolsShareBudget() throws Exception {
+		CapacityBudget budget = new CapacityBudget(3, CapacityBudget.EvictionPolicy.NEVER);
+		GenericObjectPool<String> pool1 = createPool(budget, 0);
+		GenericObjectPool<String> pool2 = createPool(budget, 0);
+
+		assertThat(pool1.claim(100, TimeUnit.MILLISECONDS)).isNotNull();
+		assertThat(pool1.claim(100, TimeUnit.MILLISECONDS)).isNotNull();
+		assertThat(pool2.claim(100, TimeUnit.MILLISECONDS)).isNotNull();
+		assertThat(pool2.claim(100, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(budget.getAvailablePermits()).isZero();
+		pool1.shutdown();
+		pool2.shutdown();
+	}
+
+	@Test
+	public void testIdleObjectIsEvictedForPoolWithWaiters() throws Exception {
+		CapacityBudget budget = new CapacityBudget(2);
+		GenericObjectPool<String> pool1 = createPool(budget, 0);
+		GenericObjectPool<String> pool2 = createPool(budget, 0);
+		PoolableObject<String> obj1 = pool1.claim(), obj2 = pool1.claim();
+		obj1.release();
+		obj2.release();
+
+		assertThat(pool2.claim(1, TimeUnit.SECONDS)).isNotNull();
+		assertThat(pool1.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		assertThat(pool2.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		assertThat(budget.getAvailablePermits()).isZero();
+		pool1.shutdown();
+		pool2.shutdown();
+	}
+
+	@Test
+	public void testSlowDeallocationDoesNotEvictMoreThanWaitersNeed() throws Exception {
+		CapacityBudget budget = new CapacityBudget(6);
+		GenericObjectPool<String> pool1 = createPool(budget, 0, 6, new Allocator<String>() {
+			@NotNull
+			@Override
+			public String allocate() {
+				return "a";
+			}
+
+			@Override
+			public void deallocate(String object) {
+				SleepUtil.sleep(40);
+			}
+		});
+		GenericObjectPool<String> pool2 = createPool(budget, 0);
+		List<PoolableObject<String>> claimed = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			claimed.add(pool1.claim());
+		}
+		for (PoolableObject<String> obj : claimed) {
+			obj.release();
+		}
+
+		PoolableObject<String> obj = pool2.claim(1, TimeUnit.SECONDS);
+		assertThat(obj).isNotNull();
+		SleepUtil.sleep(100);
+		assertThat(pool1.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(5);
+		assertThat(budget.getEvictionsInFlightFor(pool2)).isZero();
+		obj.release();
+		pool1.shutdown();
+		pool2.shutdown();
+	}
+
+	@Test
+	public void testCorePoolIsNotEvicted() throws Exception {
+		CapacityBudget budget = new CapacityBudget(2);
+		GenericObjectPool<String> pool1 = createPool(budget, 2);
+		GenericObjectPool<String> pool2 = createPool(budget, 0);
+		SleepUtil.sleep(50);
+
+		assertThat(pool2.claim(100, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(pool1.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(2);
+		pool1.shutdown();
+		pool2.shutdown();
+	}
+
+	@Test
+	public void testEvictingForDeregisteredPoolStillEvicts() throws Exception {
+		CapacityBudget budget = new CapacityBudget(2);
+		GenericObjectPool<String> pool1 = createPool(budget, 0);
+		GenericObjectPool<String> pool2 = createPool(budget, 0);
+		pool1.claim().release();
+		budget.deregister(pool2); // as when pool2 finishes shutting down while pool1 evicts for it
+
+		assertThat(budget.evictIdleObjectFor(pool2)).isTrue();
+		assertThat(budget.getEvictionsInFlightFor(pool2)).isZero();
+		pool1.shutdown().get(1, TimeUnit.SECONDS);
+		assertThat(budget.getAvailablePermits()).isEqualTo(2);
+		pool2.shutdown();
+	}
+
+	@Test
+	public void testPermitsAreReturnedOnDeallocation() throws Exception {
+		CapacityBudget budget = new CapacityBudget(2);
+		GenericObjectPool<String> pool = createPool(budget, 0);
+		pool.claim().invalidate();
+		pool.claim().release();
+
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+		assertThat(budget.getAvailablePermits()).isEqualTo(2);
+	}
+
+	private static GenericObjectPool<String> createPool(CapacityBudget budget, int corePoolsize) {
+		return createPool(budget, corePoolsize, 2, createAllocator("a"));
+	}
+
+	private static GenericObjectPool<String> createPool(CapacityBudget budget, int corePoolsize, int maxPoolsize, Allocator<String> allocator) {
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.corePoolsize(corePoolsize)
+				.maxPoolsize(maxPoolsize)
+				.capacityBudget(budget)
+				.build(), allocator);
+	}
+}
@@ -0,0 +1,90 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.CapacitySchedule.Window;
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class CapacityScheduleTest {
+
+	private static final Instant MONDAY = Instant.parse("2024-01-01T00:00:00Z");
+
+	@Test
+	public void testPoolIsWarmedAheadOfWindowAndScaledDownAfterIt() {
+		SettableClock clock = new SettableClock(MONDAY.plus(Duration.ofMinutes(8 * 60 + 50)));
+		CapacitySchedule schedule = new CapacitySchedule(Collections.singletonList(Window.daily(LocalTime.of(9, 0), LocalTime.of(10, 0), 3)),
+				Duration.ofMinutes(5), clock);
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.corePoolsize(1)
+				.maxPoolsize(5)
+				.capacitySchedule(schedule)
+				.build(), createAllocator("a"));
+
+		SleepUtil.sleep(200);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+
+		clock.instant = MONDAY.plus(Duration.ofMinutes(8 * 60 + 56));
+		SleepUtil.sleep(200);
+		assertThat(pool.getPoolMetrics().getCorePoolsize()).isEqualTo(3);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(3);
+
+		clock.instant = MONDAY.plus(Duration.ofMinutes(10 * 60 + 1));
+		SleepUtil.sleep(200);
+		assertThat(pool.getPoolMetrics().getCorePoolsize()).isEqualTo(1);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testOverlappingAndOvernightWindows() {
+		SettableClock clock = new SettableClock(MONDAY.plus(Duration.ofHours(23)));
+		CapacitySchedule schedule = new CapacitySchedule(asList(
+				new Window(EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(22, 0), LocalTime.of(4, 0), 10),
+				Window.daily(LocalTime.of(0, 0), LocalTime.of(2, 0), 20)),
+				Duration.ZERO, clock);
+
+		assertThat(schedule.getScheduledCorePoolsize()).isEqualTo(10);
+		clock.instant = MONDAY.plus(Duration.ofHours(25)); // tuesday 1:00
+		assertThat(schedule.getScheduledCorePoolsize()).isEqualTo(20);
+		clock.instant = MONDAY.plus(Duration.ofHours(27)); // tuesday 3:00
+		assertThat(schedule.getScheduledCorePoolsize()).isEqualTo(10);
+		clock.instant = MONDAY.plus(Duration.ofHours(47)); // tuesday 23:00
+		assertThat(schedule.getScheduledCorePoolsize()).isEqualTo(0);
+	}
+
+	private static class SettableClock extends Clock {
+		private volatile Instant instant;
+
+		SettableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.Deadline;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class ClaimDeadlineTest {
+
+	@Test
+	public void testTimeoutAppliesToClaimAsAWholeUnderContention() throws Exception {
+		final GenericObjectPool<String> pool = createPool();
+		final AtomicBoolean churning = new AtomicBoolean(true);
+		final PoolableObject<String> initial = pool.claim();
+
+		// keeps releasing and immediately reclaiming the only object, waking up the waiting claimer without it getting the object
+		ExecutorService es = Executors.newSingleThreadExecutor();
+		Future<?> churner = es.submit(() -> {
+			PoolableObject<String> obj = initial;
+			while (churning.get()) {
+				obj.release();
+				obj = pool.claim();
+			}
+			obj.release();
+			return null;
+		});
+
+		final long startNs = System.nanoTime();
+		final PoolableObject<String> claimed = pool.claim(100, TimeUnit.MILLISECONDS);
+		final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+		churning.set(false);
+		if (claimed != null) {
+			claimed.release();
+		}
+		churner.get(1, TimeUnit.SECONDS);
+		es.shutdown();
+
+		assertThat(elapsedMs).isLessThan(300);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSubMillisecondTimeout() throws Exception {
+		GenericObjectPool<String> pool = createPool();
+		pool.claim();
+
+		final long startNs = System.nanoTime();
+		assertThat(pool.claim(200, TimeUnit.MICROSECONDS)).isNull();
+		final long elapsedNs = System.nanoTime() - startNs;
+
+		assertThat(elapsedNs).isGreaterThanOrEqualTo(TimeUnit.MICROSECONDS.toNanos(200));
+		assertThat(elapsedNs).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+		pool.shutdown();
+	}
+
+	@Test
+	public void testClaimWithDeadline() throws Exception {
+		GenericObjectPool<String> pool = createPool();
+		Deadline deadline = Deadline.after(50, TimeUnit.MILLISECONDS);
+
+		PoolableObject<String> claimed = pool.claim(deadline);
+		assertThat(claimed).isNotNull();
+		assertThat(pool.claim(deadline)).isNull();
+		assertThat(deadline.remainingNanos()).isLessThanOrEqualTo(0);
+
+		claimed.release();
+		assertThat(pool.claim(Deadline.after(-1, TimeUnit.SECONDS))).isSameAs(claimed); // available objects are claimed even when the deadline has passed
+		pool.shutdown();
+	}
+
+	private static GenericObjectPool<String> createPool() {
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(1)
+				.build(), createAllocator("a"));
+	}
+}
@@ -0,0 +1,72 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.Timeout;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClaimMatchingOrCreateTest {
+
+	private static final Timeout SHORT_WAIT = new Timeout(20, TimeUnit.MILLISECONDS);
+	private static final Predicate<PoolableObject<String>> SCHEMA_B = poolable -> poolable.getAllocatedObject().startsWith("B");
+
+	@Test
+	public void testCreatesMatchingObjectWhenThereIsRoom() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(2);
+		pool.claim().release();
+
+		PoolableObject<String> b = pool.claimMatchingOrCreate(SCHEMA_B, () -> "B", SHORT_WAIT);
+		assertThat(b).isNotNull();
+		assertThat(b.getAllocatedObject()).isEqualTo("B");
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(2);
+
+		b.release();
+		assertThat(pool.claimMatchingOrCreate(SCHEMA_B, () -> "B2", SHORT_WAIT)).isSameAs(b);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsedNonMatchingObjectWhenFull() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(2);
+		PoolableObject<String> a1 = pool.claim();
+		PoolableObject<String> a2 = pool.claim();
+		a1.release();
+		a2.release();
+
+		PoolableObject<String> b = pool.claimMatchingOrCreate(SCHEMA_B, () -> "B", SHORT_WAIT);
+		assertThat(b).isNotNull();
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(2);
+		assertThat(pool.claim(SHORT_WAIT)).isSameAs(a2);
+		assertThat(pool.claim(SHORT_WAIT)).isNull();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testWaitsWhenNothingCanBeEvicted() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(1);
+		PoolableObject<String> a = pool.claim();
+
+		assertThat(pool.claimMatchingOrCreate(SCHEMA_B, () -> "B", SHORT_WAIT)).isNull();
+		a.release();
+		assertThat(pool.claimMatchingOrCreate(SCHEMA_B, () -> "B", SHORT_WAIT)).isNotNull();
+		pool.shutdown();
+	}
+
+	private static GenericObjectPool<String> createPool(int maxPoolsize) {
+		final AtomicInteger counter = new AtomicInteger();
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(maxPoolsize)
+				.build(), new Allocator<String>() {
+			@NotNull
+			@Override
+			public String allocate() {
+				return "A" + counter.incrementAndGet();
+			}
+		});
+	}
+}
@@ -0,0 +1,119 @@
+package org.bbottema.genericobjectpool;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class LeasePublisherTest {
+
+	@Test
+	public void testDeliversOnlyRequestedObjects() {
+		GenericObjectPool<String> pool = createPool(5);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		pool.asPublisher().subscribe(subscriber);
+
+		assertThat(subscriber.leases).isEmpty();
+		subscriber.subscription.request(2);
+		assertThat(subscriber.leases).hasSize(2);
+		assertThat(pool.getPoolMetrics().getCurrentlyClaimed()).isEqualTo(2);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testOutstandingDemandIsServedWhenCapacityIsReleased() throws Exception {
+		GenericObjectPool<String> pool = createPool(2);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		pool.asPublisher().subscribe(subscriber);
+
+		subscriber.subscription.request(3);
+		assertThat(subscriber.leases).hasSize(2);
+
+		subscriber.leases.get(0).release();
+		assertThat(subscriber.leases).hasSize(3);
+		assertThat(subscriber.leases.get(2)).isSameAs(subscriber.leases.get(0));
+
+		subscriber.leases.get(1).release();
+		assertThat(pool.claim(1, TimeUnit.SECONDS)).isSameAs(subscriber.leases.get(1));
+		pool.shutdown();
+	}
+
+	@Test
+	public void testCancelledSubscriptionReceivesNothingMore() {
+		GenericObjectPool<String> pool = createPool(1);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		pool.asPublisher().subscribe(subscriber);
+		subscriber.subscription.request(2);
+		subscriber.subscription.cancel();
+
+		subscriber.leases.get(0).release();
+		assertThat(subscriber.leases).hasSize(1);
+		assertThat(pool.getPoolMetrics().getCurrentlyClaimed()).isZero();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testInvalidRequestFailsSubscription() {
+		GenericObjectPool<String> pool = createPool(1);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		pool.asPublisher().subscribe(subscriber);
+		subscriber.subscription.request(0);
+
+		assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+		subscriber.subscription.request(1);
+		assertThat(subscriber.leases).isEmpty();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSubscriptionCompletesOnShutdown() throws Exception {
+		GenericObjectPool<String> pool = createPool(1);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		pool.asPublisher().subscribe(subscriber);
+		subscriber.subscription.request(1);
+		subscriber.leases.get(0).release();
+
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+		assertThat(subscriber.completed.await(1, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private static GenericObjectPool<String> createPool(int maxPoolsize) {
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(maxPoolsize)
+				.build(), createAllocator("a"));
+	}
+
+	private static class RecordingSubscriber implements LeasePublisher.Subscriber<PoolableObject<String>> {
+		private final List<PoolableObject<String>> leases = Collections.synchronizedList(new ArrayList<PoolableObject<String>>());
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private LeasePublisher.Subscription subscription;
+		private Throwable error;
+
+		@Override
+		public void onSubscribe(@NotNull LeasePublisher.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(@NotNull PoolableObject<String> item) {
+			leases.add(item);
+		}
+
+		@Override
+		public void onError(@NotNull Throwable throwable) {
+			error = throwable;
+		}
+
+		@Override
+		public void onComplete() {
+			completed.countDown();
+		}
+	}
+}
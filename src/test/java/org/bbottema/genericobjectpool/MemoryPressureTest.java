@@ -0,0 +1,150 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.MemoryPressurePolicy.TrimPreference;
+import org.bbottema.genericobjectpool.util.ManualClock;
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MemoryPressureTest {
+
+	// a threshold that is never actually reached, so pressure is only ever simulated and eases on the first check
+	private static final double UNREACHABLE_THRESHOLD = 1.0;
+
+	@Test
+	public void testTrimsLargestDownToCorePoolsizeAndStopsGrowingUntilPressureEases() throws Exception {
+		GenericObjectPool<String> pool = createPool(new MemoryPressurePolicy(UNREACHABLE_THRESHOLD, TrimPreference.LARGEST), new ManualClock(), "a", "bbbb", "cc", "ddd", "e");
+		PoolableObject<String> a = pool.claim(), b = pool.claim(), c = pool.claim(), d = pool.claim();
+		a.release();
+		b.release();
+		c.release();
+		d.release();
+
+		pool.memoryPressureDetected();
+		SleepUtil.sleep(50);
+		assertThat(pool.isUnderMemoryPressure()).isTrue();
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		PoolableObject<String> remaining = pool.claim(20, TimeUnit.MILLISECONDS);
+		assertThat(remaining.getAllocatedObject()).isEqualTo("a");
+		assertThat(pool.claim(20, TimeUnit.MILLISECONDS)).isNull();
+
+		PoolableObject<String> grown = pool.claim(2, TimeUnit.SECONDS);
+		assertThat(grown.getAllocatedObject()).isEqualTo("e");
+		assertThat(pool.isUnderMemoryPressure()).isFalse();
+		remaining.release();
+		grown.release();
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testTrimsOldestDownToFloor() throws Exception {
+		ManualClock clock = new ManualClock();
+		GenericObjectPool<String> pool = createPool(new MemoryPressurePolicy(UNREACHABLE_THRESHOLD, TrimPreference.OLDEST, 1), clock, "a", "b", "c", "d");
+		PoolableObject<String> a = pool.claim();
+		clock.advance(1, TimeUnit.SECONDS);
+		PoolableObject<String> b = pool.claim();
+		clock.advance(1, TimeUnit.SECONDS);
+		PoolableObject<String> c = pool.claim();
+		a.release();
+		b.release();
+		c.release();
+
+		pool.memoryPressureDetected();
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		PoolableObject<String> remaining = pool.claim(20, TimeUnit.MILLISECONDS);
+		assertThat(remaining.getAllocatedObject()).isEqualTo("c");
+		remaining.release();
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testMonitorAppliesLowestThresholdToHeapPools() {
+		MemoryPressureMonitor.Listener listener1 = () -> {};
+		MemoryPressureMonitor.Listener listener2 = () -> {};
+		MemoryPressureMonitor.getInstance().register(listener1, 0.9);
+		MemoryPressureMonitor.getInstance().register(listener2, 0.8);
+		try {
+			assertHeapPoolThresholds(0.8);
+			MemoryPressureMonitor.getInstance().deregister(listener2);
+			assertHeapPoolThresholds(0.9);
+		} finally {
+			MemoryPressureMonitor.getInstance().deregister(listener1);
+			MemoryPressureMonitor.getInstance().deregister(listener2);
+		}
+	}
+
+	@Test
+	public void testMonitorRestoresThresholdsSetByOthersWhenLastListenerDeregisters() {
+		MemoryPressureMonitor.Listener listener = () -> {};
+		setHeapPoolThresholds(0.5);
+		try {
+			MemoryPressureMonitor.getInstance().register(listener, 0.8);
+			assertHeapPoolThresholds(0.8);
+			MemoryPressureMonitor.getInstance().deregister(listener);
+			assertHeapPoolThresholds(0.5);
+		} finally {
+			MemoryPressureMonitor.getInstance().deregister(listener);
+			setHeapPoolThresholds(0);
+		}
+	}
+
+	private static void setHeapPoolThresholds(double usageThreshold) {
+		for (MemoryPoolMXBean heapPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (heapPool.getType() == MemoryType.HEAP && heapPool.isCollectionUsageThresholdSupported() && heapPool.getUsage().getMax() > 0) {
+				heapPool.setCollectionUsageThreshold((long) (heapPool.getUsage().getMax() * usageThreshold));
+			}
+		}
+	}
+
+	private static void assertHeapPoolThresholds(double usageThreshold) {
+		for (MemoryPoolMXBean heapPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (heapPool.getType() == MemoryType.HEAP && heapPool.isCollectionUsageThresholdSupported() && heapPool.getUsage().getMax() > 0) {
+				assertThat(heapPool.getCollectionUsageThreshold()).isEqualTo((long) (heapPool.getUsage().getMax() * usageThreshold));
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidPolicyIsRejected() {
+		assertThatThrownBy(() -> new MemoryPressurePolicy(0, TrimPreference.LARGEST)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new MemoryPressurePolicy(1.1, TrimPreference.LARGEST)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new MemoryPressurePolicy(0.9, TrimPreference.LARGEST, -1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PoolConfig.<String>builder()
+				.maxPoolsize(2)
+				.memoryPressurePolicy(new MemoryPressurePolicy(0.9, TrimPreference.LARGEST, 3))
+				.build()).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static GenericObjectPool<String> createPool(MemoryPressurePolicy memoryPressurePolicy, ManualClock clock, String... objects) {
+		final Queue<String> nextObjects = new ArrayDeque<>(asList(objects));
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(10)
+				.corePoolsize(1)
+				.memoryPressurePolicy(memoryPressurePolicy)
+				.clock(clock)
+				.build(), new Allocator<String>() {
+			@NotNull
+			@Override
+			public String allocate() {
+				return nextObjects.remove();
+			}
+
+			@Override
+			public long weigh(String object) {
+				return object.length();
+			}
+		});
+	}
+}
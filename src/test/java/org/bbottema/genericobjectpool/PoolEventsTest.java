@@ -0,0 +1,110 @@
+package org.bbottema.genericobjectpool;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.bbottema.genericobjectpool.expirypolicies.TimeoutSinceCreationExpirationPolicy;
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class PoolEventsTest {
+
+	private static final String PREFIX = "org.bbottema.genericobjectpool.";
+
+	@Test
+	public void testPoolLifecycleIsRecorded() throws Exception {
+		final GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(1)
+				.expirationPolicy(new TimeoutSinceCreationExpirationPolicy<String>(150, TimeUnit.MILLISECONDS))
+				.build(), createAllocator("a"));
+		final String poolName = pool.getEventPoolName();
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			for (String event : new String[]{ "Claim", "Release", "Invalidate", "Allocate", "Deallocate", "ExpirySweep", "Saturation" }) {
+				recording.enable(PREFIX + event).withThreshold(Duration.ZERO);
+			}
+			recording.start();
+			try {
+				runPoolLifecycle(pool);
+			} finally {
+				pool.shutdown().get(1, TimeUnit.SECONDS); // waits for the expired object's deallocation
+			}
+			recording.stop();
+			events = readEvents(recording);
+		}
+
+		// other tests' pools may still be running, so only this pool's events count
+		assertThat(poolName).contains("@");
+		assertThat(eventsNamed(events, "Claim", poolName)).anySatisfy(event -> {
+			assertThat(event.getBoolean("allocated")).isTrue();
+			assertThat(event.getBoolean("claimed")).isTrue();
+		});
+		assertThat(eventsNamed(events, "Claim", poolName)).anySatisfy(event -> {
+			assertThat(event.getBoolean("allocated")).isFalse();
+			assertThat(event.getBoolean("claimed")).isTrue();
+			assertThat(event.getDuration()).isPositive();
+		});
+		assertThat(eventsNamed(events, "Claim", poolName)).anySatisfy(event -> assertThat(event.getBoolean("claimed")).isFalse());
+		assertThat(eventsNamed(events, "Release", poolName)).isNotEmpty();
+		assertThat(eventsNamed(events, "Invalidate", poolName)).isNotEmpty();
+		assertThat(eventsNamed(events, "Allocate", poolName)).isNotEmpty().allSatisfy(event -> assertThat(event.getInt("allocated")).isEqualTo(1));
+		assertThat(eventsNamed(events, "Deallocate", poolName)).isNotEmpty();
+		assertThat(eventsNamed(events, "ExpirySweep", poolName)).anySatisfy(event -> assertThat(event.getInt("expired")).isEqualTo(1));
+		assertThat(eventsNamed(events, "Saturation", poolName)).anySatisfy(event -> assertThat(event.getInt("peakWaiters")).isEqualTo(1));
+	}
+
+	private static void runPoolLifecycle(final GenericObjectPool<String> pool) throws Exception {
+		final PoolableObject<String> obj = pool.claim();
+
+		ExecutorService es = Executors.newSingleThreadExecutor();
+		Future<PoolableObject<String>> waitingClaim = es.submit(() -> pool.claim(5, TimeUnit.SECONDS));
+		for (int slept = 0; pool.getPoolMetrics().getCurrentlyWaitingCount() == 0 && slept < 5000; slept += 5) {
+			SleepUtil.sleep(5);
+		}
+		assertThat(pool.getPoolMetrics().getCurrentlyWaitingCount()).isEqualTo(1);
+		obj.release();
+		waitingClaim.get().release();
+		es.shutdown();
+
+		final PoolableObject<String> claimed = pool.claim();
+		assertThat(pool.claim(1, TimeUnit.MILLISECONDS)).isNull();
+		claimed.release();
+		for (int slept = 0; pool.getPoolMetrics().getCurrentlyAllocated() > 0 && slept < 5000; slept += 5) {
+			SleepUtil.sleep(5); // until it expires
+		}
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isZero();
+	}
+
+	private static List<RecordedEvent> readEvents(Recording recording) throws Exception {
+		File file = File.createTempFile("pool-events", ".jfr");
+		try {
+			recording.dump(file.toPath());
+			return RecordingFile.readAllEvents(file.toPath());
+		} finally {
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name, String poolName) {
+		List<RecordedEvent> named = new ArrayList<>();
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals(PREFIX + name) && poolName.equals(event.getString("pool"))) {
+				named.add(event);
+			}
+		}
+		return named;
+	}
+}
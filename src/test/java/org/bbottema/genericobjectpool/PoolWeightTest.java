@@ -0,0 +1,115 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PoolWeightTest {
+
+	@Test
+	public void testPoolStopsGrowingAtMaxWeight() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(100, 40, 40, 40, 40);
+		PoolableObject<String> obj1 = pool.claim(), obj2 = pool.claim(), obj3 = pool.claim();
+
+		assertThat(pool.claim(20, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(pool.getPoolMetrics().getCurrentWeight()).isEqualTo(120);
+		assertThat(pool.getPoolMetrics().getMaxPoolWeight()).isEqualTo(100);
+
+		obj1.release();
+		obj2.release();
+		obj3.release();
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCurrentWeight()).isEqualTo(80);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(2);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testHeaviestObjectsAreEvictedFirst() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(50, 10, 50, 30);
+		PoolableObject<String> light = pool.claim(), heavy = pool.claim();
+		light.release();
+		assertThat(pool.claim()).isSameAs(light);
+		assertThat(pool.claim(20, TimeUnit.MILLISECONDS)).isNull(); // weight 60, can't grow further
+
+		light.release();
+		heavy.release();
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCurrentWeight()).isEqualTo(10);
+		assertThat(pool.claim(20, TimeUnit.MILLISECONDS)).isSameAs(light);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testNegativelyWeighedObjectIsDeallocatedAndItsCapacityReturned() throws InterruptedException {
+		final List<String> deallocated = new CopyOnWriteArrayList<>();
+		CapacityBudget budget = new CapacityBudget(1);
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(1)
+				.capacityBudget(budget)
+				.build(), new Allocator<String>() {
+			private int allocated;
+
+			@NotNull
+			@Override
+			public String allocate() {
+				return allocated++ == 0 ? "bad" : "good";
+			}
+
+			@Override
+			public long weigh(String object) {
+				return object.equals("bad") ? -1 : 1;
+			}
+
+			@Override
+			public void deallocate(String object) {
+				deallocated.add(object);
+			}
+		});
+
+		assertThatThrownBy(pool::claim).isInstanceOf(IllegalStateException.class).hasMessageContaining("negatively");
+		assertThat(deallocated).containsExactly("bad");
+		assertThat(budget.getAvailablePermits()).isEqualTo(1);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isZero();
+		assertThat(pool.getPoolMetrics().getCurrentWeight()).isZero();
+
+		PoolableObject<String> obj = pool.claim(20, TimeUnit.MILLISECONDS);
+		assertThat(obj.getAllocatedObject()).isEqualTo("good");
+		obj.release();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testInvalidMaxWeightIsRejected() {
+		assertThatThrownBy(() -> PoolConfig.<String>builder().maxPoolsize(1).maxPoolWeight(-1).build()).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static GenericObjectPool<String> createPool(long maxPoolWeight, Integer... weights) {
+		final Queue<Integer> nextWeights = new ArrayDeque<>(asList(weights));
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(10)
+				.maxPoolWeight(maxPoolWeight)
+				.build(), new Allocator<String>() {
+			@NotNull
+			@Override
+			public String allocate() {
+				return new String(new char[nextWeights.remove()]);
+			}
+
+			@Override
+			public long weigh(String object) {
+				return object.length();
+			}
+		});
+	}
+}
@@ -0,0 +1,162 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.expirypolicies.TimeoutSinceCreationExpirationPolicy;
+import org.bbottema.genericobjectpool.util.ManualClock;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+/**
+ * Measures the pool's bookkeeping overhead per pooled object (the pooled objects themselves are a single shared instance here), with one expiry stored per
+ * object as the built-in expiration policies do. As the absolute numbers depend on the JVM, it is compared to the same measurement of the former layout
+ * (a {@link Date} and an expiry map per object, kept in a {@link LinkedList}), both in a fresh JVM so other tests' garbage doesn't skew the heap deltas.
+ */
+public class PoolableObjectFootprintTest {
+
+	private static final int POOL_SIZE = 100_000;
+	private static final Object SHARED_OBJECT = new Object();
+	private static final String RESULT_PREFIX = "bytesPerObject=";
+
+	@Test
+	public void testBytesPerPooledObjectAreLessThanHalfOfTheFormerLayout() throws Exception {
+		final long formerBytesPerObject = measureBytesPerObjectInFreshJvm("former");
+		final long bytesPerObject = measureBytesPerObjectInFreshJvm("current");
+		assertThat(bytesPerObject)
+				.as("bytes per pooled object, compared to %d with the former layout", formerBytesPerObject)
+				.isPositive()
+				.isLessThan(formerBytesPerObject / 2);
+	}
+
+	@Test
+	public void testCreatedOnIsWallClockTimeWhateverThePoolsClock() throws Exception {
+		ManualClock clock = new ManualClock();
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(1)
+				.clock(clock)
+				.build(), createAllocator("a"));
+		long before = System.currentTimeMillis();
+		PoolableObject<String> poolableObject = pool.claim();
+		long after = System.currentTimeMillis();
+
+		Date createdOn = poolableObject.getCreatedOn();
+		assertThat(createdOn.getTime()).isBetween(before, after);
+		clock.advance(1, TimeUnit.HOURS);
+		assertThat(poolableObject.getCreatedOn()).isEqualTo(createdOn);
+		poolableObject.release();
+		pool.shutdown();
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		final long bytesPerObject = args[0].equals("current") ? measureCurrentLayout() : measureFormerLayout();
+		System.out.println(RESULT_PREFIX + bytesPerObject);
+		System.exit(0);
+	}
+
+	private static long measureBytesPerObjectInFreshJvm(final String layout) throws IOException, InterruptedException {
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		final Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), PoolableObjectFootprintTest.class.getName(), layout)
+				.redirectErrorStream(true)
+				.start();
+		Long bytesPerObject = null;
+		try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			for (String line = output.readLine(); line != null; line = output.readLine()) {
+				if (line.startsWith(RESULT_PREFIX)) {
+					bytesPerObject = Long.parseLong(line.substring(RESULT_PREFIX.length()));
+				}
+			}
+		}
+		assertThat(process.waitFor(1, TimeUnit.MINUTES)).isTrue();
+		assertThat(bytesPerObject).as("measurement result").isNotNull();
+		return bytesPerObject;
+	}
+
+	private static long measureCurrentLayout() throws InterruptedException {
+		final TimeoutSinceCreationExpirationPolicy<Object> expirationPolicy = new TimeoutSinceCreationExpirationPolicy<>(1, TimeUnit.DAYS);
+		final long usedBefore = usedHeapAfterGc();
+
+		GenericObjectPool<Object> pool = new GenericObjectPool<>(PoolConfig.builder().maxPoolsize(POOL_SIZE).build(), new Allocator<Object>() {
+			@NotNull
+			@Override
+			public Object allocate() {
+				return SHARED_OBJECT;
+			}
+		});
+		List<PoolableObject<Object>> claimed = new ArrayList<>(POOL_SIZE);
+		for (int i = 0; i < POOL_SIZE; i++) {
+			PoolableObject<Object> poolableObject = pool.claim();
+			poolableObject.getExpiriesMs().put(expirationPolicy, expirationPolicy.getExpiryAgeMs());
+			claimed.add(poolableObject);
+		}
+		for (PoolableObject<Object> poolableObject : claimed) {
+			poolableObject.release();
+		}
+		claimed = null;
+
+		final long bytesPerObject = (usedHeapAfterGc() - usedBefore) / POOL_SIZE;
+		return pool.getPoolMetrics().getCurrentlyAllocated() == POOL_SIZE ? bytesPerObject : -1;
+	}
+
+	private static long measureFormerLayout() throws InterruptedException {
+		final TimeoutSinceCreationExpirationPolicy<Object> expirationPolicy = new TimeoutSinceCreationExpirationPolicy<>(1, TimeUnit.DAYS);
+		final long usedBefore = usedHeapAfterGc();
+
+		LinkedList<FormerPoolableObject> available = new LinkedList<>();
+		for (int i = 0; i < POOL_SIZE; i++) {
+			FormerPoolableObject poolableObject = new FormerPoolableObject(available);
+			poolableObject.expiriesMs.put(expirationPolicy, poolableObject.creationStampMs + expirationPolicy.getExpiryAgeMs());
+			available.addLast(poolableObject);
+		}
+
+		final long bytesPerObject = (usedHeapAfterGc() - usedBefore) / POOL_SIZE;
+		return available.size() == POOL_SIZE ? bytesPerObject : -1;
+	}
+
+	/**
+	 * The fields {@link PoolableObject} had before its layout was compacted, plus the ones it gained since for other features.
+	 */
+	@SuppressWarnings({"unused", "FieldCanBeLocal"})
+	private static class FormerPoolableObject {
+		private final Object pool;
+		private final Object allocatedObject = SHARED_OBJECT;
+		private final Date createdOn = new Date();
+		private final long creationStampMs = System.currentTimeMillis();
+		private final int generation = 0;
+		private final Map<String, Object> attributes = null;
+		private final long weight = 1;
+		private long allocationStampMs = creationStampMs;
+		private long availableStampMs = creationStampMs;
+		private final Map<Object, Long> expiriesMs = new HashMap<>();
+		private volatile Object currentPoolStatus = PoolableObject.PoolStatus.AVAILABLE;
+		private Object claimSite;
+
+		private FormerPoolableObject(final Object pool) {
+			this.pool = pool;
+		}
+	}
+
+	private static long usedHeapAfterGc() throws InterruptedException {
+		final Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			TimeUnit.MILLISECONDS.sleep(20);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
@@ -0,0 +1,122 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.bbottema.genericobjectpool.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class PriorityClaimTest {
+
+	private ExecutorService es;
+
+	@BeforeEach
+	public void setup() {
+		es = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		es.shutdownNow();
+	}
+
+	@Test
+	public void testReleasedObjectGoesToHighestPriorityWaiter() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), createAllocator("a"));
+		PoolableObject<String> obj = pool.claim();
+
+		Future<PoolableObject<String>> lowPriorityClaim = submitClaim(pool, 1, 1);
+		Future<PoolableObject<String>> highPriorityClaim = submitClaim(pool, 5, 2);
+
+		obj.release();
+		assertThat(highPriorityClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		assertThat(lowPriorityClaim.isDone()).isFalse();
+		obj.release();
+		assertThat(lowPriorityClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+
+		PoolMetrics metrics = pool.getPoolMetrics();
+		assertThat(metrics.getWaitTimesByPriority()).containsOnlyKeys(1, 5);
+		assertThat(metrics.getWaitTimesByPriority().get(1).getWaitCount()).isEqualTo(1);
+		assertThat(metrics.getWaitTimesByPriority().get(1).getMaxWaitMs())
+				.isGreaterThanOrEqualTo(metrics.getWaitTimesByPriority().get(5).getMaxWaitMs());
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSamePriorityIsServedFirstComeFirstServed() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), createAllocator("a"));
+		PoolableObject<String> obj = pool.claim();
+
+		Future<PoolableObject<String>> firstClaim = submitClaim(pool, 3, 1);
+		Future<PoolableObject<String>> secondClaim = submitClaim(pool, 3, 2);
+
+		obj.release();
+		assertThat(firstClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		assertThat(secondClaim.isDone()).isFalse();
+		obj.release();
+		assertThat(secondClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testDefaultAndNegativePrioritiesAreServedHighestFirstThenFirstComeFirstServed() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder().maxPoolsize(1).build(), createAllocator("a"));
+		PoolableObject<String> obj = pool.claim();
+
+		Future<PoolableObject<String>> negativePriorityClaim = submitClaim(pool, -1, 1);
+		Future<PoolableObject<String>> firstDefaultPriorityClaim = submitClaim(pool, 0, 2);
+		Future<PoolableObject<String>> secondDefaultPriorityClaim = submitClaim(pool, 0, 3);
+
+		obj.release();
+		assertThat(firstDefaultPriorityClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		obj.release();
+		assertThat(secondDefaultPriorityClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		assertThat(negativePriorityClaim.isDone()).isFalse();
+		obj.release();
+		assertThat(negativePriorityClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testAgingLetsLongWaitingLowPriorityClaimGoFirst() throws Exception {
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(1)
+				.priorityAgingInterval(new Timeout(10, TimeUnit.MILLISECONDS))
+				.build(), createAllocator("a"));
+		PoolableObject<String> obj = pool.claim();
+
+		Future<PoolableObject<String>> lowPriorityClaim = submitClaim(pool, 1, 1);
+		SleepUtil.sleep(200);
+		Future<PoolableObject<String>> highPriorityClaim = submitClaim(pool, 5, 2);
+
+		obj.release();
+		assertThat(lowPriorityClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		assertThat(highPriorityClaim.isDone()).isFalse();
+		obj.release();
+		assertThat(highPriorityClaim.get(1, TimeUnit.SECONDS)).isSameAs(obj);
+		pool.shutdown();
+	}
+
+	private Future<PoolableObject<String>> submitClaim(final GenericObjectPool<String> pool, final int priority, final int expectedWaiting) {
+		Future<PoolableObject<String>> claim = es.submit(new Callable<PoolableObject<String>>() {
+			@Override
+			public PoolableObject<String> call() throws Exception {
+				return pool.claim(priority, new Timeout(2, TimeUnit.SECONDS));
+			}
+		});
+		for (int slept = 0; pool.getPoolMetrics().getCurrentlyWaitingCount() < expectedWaiting && slept < 1000; slept += 5) {
+			SleepUtil.sleep(5);
+		}
+		assertThat(pool.getPoolMetrics().getCurrentlyWaitingCount()).isEqualTo(expectedWaiting);
+		return claim;
+	}
+}
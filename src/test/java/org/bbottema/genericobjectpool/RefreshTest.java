@@ -0,0 +1,100 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class RefreshTest {
+
+	@Test
+	public void testIdleObjectsAreReplacedWithoutDroppingAvailability() throws Exception {
+		GenericObjectPool<String> pool = createPool(2, 4);
+		SleepUtil.sleep(50);
+		PoolableObject<String> obj1 = pool.claim(), obj2 = pool.claim();
+		obj1.release();
+		obj2.release();
+
+		RefreshProgress progress = pool.refresh(200);
+		assertThat(progress.getObjectsToReplace()).isEqualTo(2);
+		while (!progress.isDone()) {
+			PoolMetrics metrics = pool.getPoolMetrics();
+			assertThat(metrics.getCurrentlyAllocated() - metrics.getCurrentlyClaimed()).isGreaterThanOrEqualTo(2);
+			SleepUtil.sleep(1);
+		}
+		progress.getCompletion().get(1, TimeUnit.SECONDS);
+
+		PoolableObject<String> fresh1 = pool.claim(), fresh2 = pool.claim();
+		assertThat(fresh1).isNotIn(obj1, obj2);
+		assertThat(fresh2).isNotIn(obj1, obj2);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testClaimedObjectsAreRetiredOnRelease() throws Exception {
+		GenericObjectPool<String> pool = createPool(0, 4);
+		PoolableObject<String> obj1 = pool.claim();
+
+		RefreshProgress progress = pool.refresh(1000);
+		SleepUtil.sleep(50);
+		assertThat(progress.isDone()).isFalse();
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(2); // replacement allocated ahead
+
+		obj1.release();
+		assertThat(progress.getCompletion().get(1, TimeUnit.SECONDS)).isNull();
+		assertThat(progress.getObjectsReplaced()).isEqualTo(1);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		assertThat(pool.claim()).isNotSameAs(obj1);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testInvalidatedClaimedObjectTakesTheReplacementAllocatedAheadForIt() throws Exception {
+		GenericObjectPool<String> pool = createPool(0, 5);
+		PoolableObject<String> obj1 = pool.claim(), obj2 = pool.claim(), obj3 = pool.claim();
+
+		RefreshProgress progress = pool.refresh(1000);
+		awaitCurrentlyAllocated(pool, 5); // room for only two replacements ahead
+
+		obj1.invalidate();
+		awaitCurrentlyAllocated(pool, 5); // obj1 took a replacement, so one more is allocated ahead for obj2 and obj3
+
+		obj2.release();
+		obj3.release();
+		assertThat(progress.getCompletion().get(1, TimeUnit.SECONDS)).isNull();
+		assertThat(progress.getObjectsReplaced()).isEqualTo(3);
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(3);
+		assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(6);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testInvalidRefreshesAreRejected() throws InterruptedException {
+		GenericObjectPool<String> pool = createPool(0, 4);
+		PoolableObject<String> obj1 = pool.claim();
+		assertThatThrownBy(() -> pool.refresh(0)).isInstanceOf(IllegalArgumentException.class);
+		pool.refresh(10);
+		assertThatThrownBy(() -> pool.refresh(10)).isInstanceOf(IllegalStateException.class);
+		obj1.release();
+		pool.shutdown();
+	}
+
+	private static void awaitCurrentlyAllocated(GenericObjectPool<String> pool, int expected) {
+		for (int i = 0; i < 200 && pool.getPoolMetrics().getCurrentlyAllocated() != expected; i++) {
+			SleepUtil.sleep(5);
+		}
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(expected);
+	}
+
+	private static GenericObjectPool<String> createPool(int corePoolsize, int maxPoolsize) {
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.corePoolsize(corePoolsize)
+				.maxPoolsize(maxPoolsize)
+				.build(), createAllocator("a"));
+	}
+}
@@ -0,0 +1,96 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class ResizeTest {
+
+	@Test
+	public void testGrowingWakesWaitingClaimers() throws Exception {
+		final GenericObjectPool<String> pool = createPool(1);
+		final PoolableObject<String> obj1 = pool.claim();
+
+		ExecutorService es = Executors.newSingleThreadExecutor();
+		Future<PoolableObject<String>> waitingClaim = es.submit(new Callable<PoolableObject<String>>() {
+			@Override
+			public PoolableObject<String> call() throws Exception {
+				return pool.claim(1, TimeUnit.SECONDS);
+			}
+		});
+		SleepUtil.sleep(50);
+		pool.resize(0, 2);
+
+		assertThat(waitingClaim.get(200, TimeUnit.MILLISECONDS)).isNotNull().isNotSameAs(obj1);
+		assertThat(pool.getPoolMetrics().getMaxPoolsize()).isEqualTo(2);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(2);
+		es.shutdown();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testGrowingCorePoolsizeFillsPool() {
+		GenericObjectPool<String> pool = createPool(4);
+		pool.resize(3, 4);
+
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCorePoolsize()).isEqualTo(3);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(3);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testShrinkingRetiresIdleObjectsFirstAndClaimedObjectsOnRelease() throws Exception {
+		GenericObjectPool<String> pool = createPool(4);
+		PoolableObject<String> obj1 = pool.claim(), obj2 = pool.claim(), obj3 = pool.claim(), obj4 = pool.claim();
+		obj3.release();
+		obj4.release();
+
+		pool.resize(0, 1);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(2);
+		assertThat(pool.getPoolMetrics().getCurrentlyClaimed()).isEqualTo(2);
+
+		obj1.release();
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		obj2.release();
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(1);
+		assertThat(pool.claim(100, TimeUnit.MILLISECONDS)).isSameAs(obj2);
+		assertThat(pool.claim(100, TimeUnit.MILLISECONDS)).isNull();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testInvalidSizesAreRejected() {
+		GenericObjectPool<String> pool = createPool(4);
+		assertThatThrownBy(() -> pool.resize(0, 0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> pool.resize(3, 2)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(pool.getPoolMetrics().getMaxPoolsize()).isEqualTo(4);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testResizingAfterShutdownIsRejected() throws Exception {
+		GenericObjectPool<String> pool = createPool(4);
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+		assertThatThrownBy(() -> pool.resize(2, 8))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Pool has been shutdown");
+		assertThat(pool.getPoolMetrics().getMaxPoolsize()).isEqualTo(4);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isZero();
+	}
+
+	private static GenericObjectPool<String> createPool(int maxPoolsize) {
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(maxPoolsize)
+				.build(), createAllocator("a"));
+	}
+}
@@ -0,0 +1,142 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.ManualClock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class SelectionStrategyTest {
+
+	@Test
+	public void testFifoClaimsObjectReleasedLongestAgo() throws Exception {
+		GenericObjectPool<String> pool = createPool(SelectionStrategy.FIFO);
+		PoolableObject<String> a = pool.claim(), b = pool.claim(), c = pool.claim();
+		c.release();
+		b.release();
+		a.release();
+
+		assertThat(pool.claim()).isSameAs(c);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testLifoClaimsObjectReleasedMostRecently() throws Exception {
+		GenericObjectPool<String> pool = createPool(SelectionStrategy.LIFO);
+		PoolableObject<String> a = pool.claim(), b = pool.claim(), c = pool.claim();
+		c.release();
+		b.release();
+		a.release();
+
+		assertThat(pool.claim()).isSameAs(a);
+		assertThat(pool.claim()).isSameAs(b);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testLruClaimsObjectClaimedLongestAgo() throws Exception {
+		ManualClock clock = new ManualClock();
+		GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(3)
+				.selectionStrategy(SelectionStrategy.LRU)
+				.clock(clock)
+				.build(), createAllocator("a"));
+		PoolableObject<String> a = claimAndAdvance(pool, clock), b = claimAndAdvance(pool, clock), c = claimAndAdvance(pool, clock);
+		c.release();
+		b.release();
+		a.release();
+
+		assertThat(pool.claim()).isSameAs(a);
+		assertThat(pool.claim()).isSameAs(b);
+		assertThat(pool.claim()).isSameAs(c);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testRandomClaimsAnyAvailableObject() throws Exception {
+		GenericObjectPool<String> pool = createPool(SelectionStrategy.RANDOM);
+		Set<PoolableObject<String>> claimed = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			claimed.add(pool.claim());
+		}
+		for (PoolableObject<String> poolableObject : claimed) {
+			poolableObject.release();
+		}
+
+		Set<PoolableObject<String>> reclaimed = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			reclaimed.add(pool.claim());
+		}
+		assertThat(reclaimed).isEqualTo(claimed);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testRandomSkipsObjectsRemovedOtherwise() throws Exception {
+		GenericObjectPool<String> pool = createPool(SelectionStrategy.RANDOM, 60);
+		List<PoolableObject<String>> claimed = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			claimed.add(pool.claim());
+		}
+		for (PoolableObject<String> poolableObject : claimed) {
+			poolableObject.release();
+		}
+		Set<PoolableObject<String>> remaining = new HashSet<>(claimed);
+		for (int i = 0; i < 40; i++) {
+			claimed.get(i).invalidate(); // removed from the available objects directly, rather than claimed
+			remaining.remove(claimed.get(i));
+		}
+
+		Set<PoolableObject<String>> reclaimed = new HashSet<>();
+		for (int i = 0; i < 20; i++) {
+			reclaimed.add(pool.claim());
+		}
+		assertThat(reclaimed).isEqualTo(remaining);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testRandomStaysUniformWhenObjectsAreClaimedOtherwise() throws Exception {
+		GenericObjectPool<String> pool = createPool(SelectionStrategy.RANDOM, 2);
+		PoolableObject<String> a = pool.claim(), b = pool.claim();
+		a.release();
+		b.release();
+		for (int i = 0; i < 20; i++) {
+			pool.claimMatching(poolableObject -> poolableObject == a, 1, TimeUnit.SECONDS).release(); // taken out of the middle and added again
+		}
+
+		int claimedA = 0;
+		for (int i = 0; i < 1000; i++) {
+			PoolableObject<String> claimed = pool.claim();
+			if (claimed == a) {
+				claimedA++;
+			}
+			claimed.release();
+		}
+		assertThat(claimedA).isBetween(400, 600);
+		pool.shutdown();
+	}
+
+	private static GenericObjectPool<String> createPool(SelectionStrategy selectionStrategy) {
+		return createPool(selectionStrategy, 3);
+	}
+
+	private static GenericObjectPool<String> createPool(SelectionStrategy selectionStrategy, int maxPoolsize) {
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(maxPoolsize)
+				.selectionStrategy(selectionStrategy)
+				.build(), createAllocator("a"));
+	}
+
+	private static PoolableObject<String> claimAndAdvance(GenericObjectPool<String> pool, ManualClock clock) throws InterruptedException {
+		PoolableObject<String> poolableObject = pool.claim();
+		clock.advance(1, TimeUnit.SECONDS);
+		return poolableObject;
+	}
+}
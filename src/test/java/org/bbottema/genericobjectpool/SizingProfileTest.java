@@ -0,0 +1,64 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class SizingProfileTest {
+
+	@Test
+	public void testProfileIsSavedOnShutdown() throws Exception {
+		Path file = Files.createTempDirectory("pool").resolve("sizing.properties");
+		GenericObjectPool<String> pool = createPool(10, file);
+		PoolableObject<String> obj1 = pool.claim(), obj2 = pool.claim(), obj3 = pool.claim();
+		obj1.release();
+		obj2.release();
+		obj3.release();
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+
+		SizingProfile profile = SizingProfile.load(file);
+		assertThat(profile).isNotNull();
+		assertThat(profile.getPeakConcurrency()).isEqualTo(3);
+		assertThat(profile.getAllocationLatencyNs()).isGreaterThan(0);
+	}
+
+	@Test
+	public void testPoolPreWarmsToSavedWorkingSizeWithinMaxPoolsize() throws Exception {
+		Path file = Files.createTempDirectory("pool").resolve("sizing.properties");
+		new SizingProfile(4, 2, TimeUnit.MILLISECONDS.toNanos(1)).save(file);
+
+		GenericObjectPool<String> pool = createPool(5, file);
+		SleepUtil.sleep(100);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(5);
+		assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(5);
+		pool.claim().release();
+		assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(5);
+		pool.shutdown();
+	}
+
+	@Test
+	public void testUnreadableProfileIsIgnored() throws IOException {
+		Path file = Files.createTempDirectory("pool").resolve("sizing.properties");
+		Files.write(file, "peakConcurrency=lots".getBytes(UTF_8));
+
+		GenericObjectPool<String> pool = createPool(5, file);
+		SleepUtil.sleep(50);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(0);
+		pool.shutdown();
+	}
+
+	private static GenericObjectPool<String> createPool(int maxPoolsize, Path sizingProfileFile) {
+		return new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(maxPoolsize)
+				.sizingProfileFile(sizingProfileFile)
+				.build(), createAllocator("a"));
+	}
+}
@@ -0,0 +1,130 @@
+package org.bbottema.genericobjectpool;
+
+import org.bbottema.genericobjectpool.expirypolicies.TimeoutSinceLastAllocationExpirationPolicy;
+import org.bbottema.genericobjectpool.util.SleepUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bbottema.genericobjectpool.ObjectPoolTestHelper.createAllocator;
+
+public class StripedObjectPoolTest {
+
+	private static final int THREADS = 16;
+	private static final int CLAIMS_PER_THREAD = 500;
+
+	@Test
+	public void testMaxPoolsizeAppliesToAllStripesTogether() throws Exception {
+		final GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(8)
+				.stripes(4)
+				.build(), createAllocator("a"));
+		final AtomicInteger concurrentlyClaimed = new AtomicInteger();
+		final AtomicInteger maxConcurrentlyClaimed = new AtomicInteger();
+
+		ExecutorService es = Executors.newFixedThreadPool(THREADS);
+		Callable<Void> claimer = new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				for (int i = 0; i < CLAIMS_PER_THREAD; i++) {
+					PoolableObject<String> poolableObject = pool.claim();
+					int claimed = concurrentlyClaimed.incrementAndGet();
+					if (claimed > maxConcurrentlyClaimed.get()) {
+						maxConcurrentlyClaimed.set(claimed);
+					}
+					concurrentlyClaimed.decrementAndGet();
+					poolableObject.release();
+				}
+				return null;
+			}
+		};
+		Future<?>[] futures = new Future<?>[THREADS];
+		for (int i = 0; i < THREADS; i++) {
+			futures[i] = es.submit(claimer);
+		}
+		for (Future<?> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		es.shutdown();
+
+		PoolMetrics metrics = pool.getPoolMetrics();
+		assertThat(maxConcurrentlyClaimed.get()).isLessThanOrEqualTo(8);
+		assertThat(metrics.getCurrentlyClaimed()).isZero();
+		assertThat(metrics.getCurrentlyAllocated()).isBetween(1, 8);
+		assertThat(metrics.getTotalAllocated()).isEqualTo(metrics.getCurrentlyAllocated());
+		assertThat(metrics.getTotalClaimed()).isEqualTo(THREADS * CLAIMS_PER_THREAD);
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testClaimStealsFromOtherStripes() throws Exception {
+		final GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(2)
+				.stripes(8)
+				.build(), createAllocator("a"));
+		final PoolableObject<String> obj1 = pool.claim();
+		final PoolableObject<String> obj2 = pool.claim();
+		obj1.release();
+		obj2.release();
+
+		ExecutorService es = Executors.newFixedThreadPool(2);
+		Callable<PoolableObject<String>> claimer = new Callable<PoolableObject<String>>() {
+			@Override
+			public PoolableObject<String> call() throws Exception {
+				return pool.claim(100, TimeUnit.MILLISECONDS);
+			}
+		};
+		Future<PoolableObject<String>> claim1 = es.submit(claimer);
+		Future<PoolableObject<String>> claim2 = es.submit(claimer);
+
+		assertThat(claim1.get()).isNotNull();
+		assertThat(claim2.get()).isNotNull();
+		assertThat(pool.getPoolMetrics().getTotalAllocated()).isEqualTo(2);
+		es.shutdown();
+	}
+
+	@Test
+	public void testWaitingClaimerIsWokenByReleaseOnAnyStripe() throws Exception {
+		final GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.maxPoolsize(1)
+				.stripes(4)
+				.build(), createAllocator("a"));
+		final PoolableObject<String> obj = pool.claim();
+
+		ExecutorService es = Executors.newSingleThreadExecutor();
+		Future<PoolableObject<String>> waitingClaim = es.submit(new Callable<PoolableObject<String>>() {
+			@Override
+			public PoolableObject<String> call() throws Exception {
+				return pool.claim(1, TimeUnit.SECONDS);
+			}
+		});
+		SleepUtil.sleep(50);
+		obj.release();
+
+		assertThat(waitingClaim.get(200, TimeUnit.MILLISECONDS)).isSameAs(obj);
+		es.shutdown();
+	}
+
+	@Test
+	public void testCorePoolsizeAndExpiryApplyToAllStripesTogether() {
+		final GenericObjectPool<String> pool = new GenericObjectPool<>(PoolConfig.<String>builder()
+				.corePoolsize(4)
+				.maxPoolsize(4)
+				.stripes(4)
+				.expirationPolicy(new TimeoutSinceLastAllocationExpirationPolicy<String>(50, TimeUnit.MILLISECONDS))
+				.build(), createAllocator("a"));
+
+		SleepUtil.sleep(30);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(4);
+		SleepUtil.sleep(200);
+		assertThat(pool.getPoolMetrics().getCurrentlyAllocated()).isEqualTo(4);
+		assertThat(pool.getPoolMetrics().getTotalAllocated()).isGreaterThan(4);
+		pool.shutdown();
+	}
+}
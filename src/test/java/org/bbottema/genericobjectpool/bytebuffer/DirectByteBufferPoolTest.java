@@ -0,0 +1,72 @@
+package org.bbottema.genericobjectpool.bytebuffer;
+
+import org.bbottema.genericobjectpool.PoolMetrics;
+import org.bbottema.genericobjectpool.PoolableObject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DirectByteBufferPoolTest {
+
+	@Test
+	public void testClaimsSmallestFittingSizeClass() throws Exception {
+		DirectByteBufferPool pool = createPool();
+		assertThat(pool.sizeClassFor(0)).isEqualTo(4096);
+		assertThat(pool.sizeClassFor(4096)).isEqualTo(4096);
+		assertThat(pool.sizeClassFor(4097)).isEqualTo(8192);
+		assertThat(pool.sizeClassFor(64 * 1024)).isEqualTo(64 * 1024);
+		assertThatThrownBy(() -> pool.claim(64 * 1024 + 1)).isInstanceOf(IllegalArgumentException.class);
+
+		PoolableObject<ByteBuffer> buffer = pool.claim(5000);
+		assertThat(buffer.getAllocatedObject().isDirect()).isTrue();
+		assertThat(buffer.getAllocatedObject().capacity()).isEqualTo(8192);
+		buffer.release();
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testReleasedBuffersAreClearedAndReused() throws Exception {
+		DirectByteBufferPool pool = createPool();
+		PoolableObject<ByteBuffer> buffer = pool.claim(100);
+		buffer.getAllocatedObject().putInt(42).flip();
+		buffer.release();
+
+		PoolableObject<ByteBuffer> reclaimed = pool.claim(100);
+		assertThat(reclaimed).isSameAs(buffer);
+		assertThat(reclaimed.getAllocatedObject().position()).isEqualTo(0);
+		assertThat(reclaimed.getAllocatedObject().remaining()).isEqualTo(4096);
+		reclaimed.release();
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testMetricsBySizeClass() throws Exception {
+		DirectByteBufferPool pool = createPool();
+		PoolableObject<ByteBuffer> small1 = pool.claim(10), small2 = pool.claim(10), large = pool.claim(40_000);
+
+		Map<Integer, PoolMetrics> metrics = pool.getMetricsBySizeClass();
+		assertThat(metrics).containsOnlyKeys(4096, 64 * 1024);
+		assertThat(metrics.get(4096).getCurrentlyClaimed()).isEqualTo(2);
+		assertThat(metrics.get(4096).getCurrentWeight()).isEqualTo(2 * 4096);
+		assertThat(metrics.get(64 * 1024).getCurrentWeight()).isEqualTo(64 * 1024);
+
+		small1.release();
+		small2.release();
+		large.release();
+		pool.shutdown().get(1, TimeUnit.SECONDS);
+		assertThatThrownBy(() -> pool.claim(10)).isInstanceOf(IllegalStateException.class);
+	}
+
+	private static DirectByteBufferPool createPool() {
+		return new DirectByteBufferPool(DirectByteBufferPoolConfig.builder()
+				.maxBufferSize(64 * 1024)
+				.slabSize(16 * 1024)
+				.maxBuffersPerSizeClass(8)
+				.build());
+	}
+}
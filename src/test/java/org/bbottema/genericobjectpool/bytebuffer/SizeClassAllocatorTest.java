@@ -0,0 +1,54 @@
+package org.bbottema.genericobjectpool.bytebuffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SizeClassAllocatorTest {
+
+	@Test
+	public void testSmallBuffersAreSlicedFromSlabs() {
+		SizeClassAllocator allocator = new SizeClassAllocator(1024, 2048);
+		ByteBuffer first = allocator.allocate();
+		ByteBuffer second = allocator.allocate();
+		assertThat(allocator.getSlabCount()).isEqualTo(1);
+		assertThat(first.capacity()).isEqualTo(1024);
+		assertThat(first.isDirect()).isTrue();
+
+		first.put(0, (byte) 1);
+		second.put(0, (byte) 2);
+		assertThat(first.get(0)).isEqualTo((byte) 1);
+
+		allocator.allocate();
+		assertThat(allocator.getSlabCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void testSlabIsFreedOnceAllItsSlicesAreDeallocated() {
+		SizeClassAllocator allocator = new SizeClassAllocator(1024, 2048);
+		ByteBuffer first = allocator.allocate();
+		ByteBuffer second = allocator.allocate();
+		ByteBuffer third = allocator.allocate();
+
+		allocator.deallocate(first);
+		assertThat(allocator.getSlabCount()).isEqualTo(2);
+		assertThat(allocator.allocate()).isSameAs(first); // free slices are reused
+
+		allocator.deallocate(first);
+		allocator.deallocate(second);
+		assertThat(allocator.getSlabCount()).isEqualTo(1);
+		allocator.deallocate(third); // the current slab is kept for new slices
+		assertThat(allocator.getSlabCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testLargeBuffersAreAllocatedSeparately() {
+		SizeClassAllocator allocator = new SizeClassAllocator(4096, 2048);
+		ByteBuffer buffer = allocator.allocate();
+		assertThat(buffer.capacity()).isEqualTo(4096);
+		assertThat(allocator.getSlabCount()).isEqualTo(0);
+		allocator.deallocate(buffer);
+	}
+}
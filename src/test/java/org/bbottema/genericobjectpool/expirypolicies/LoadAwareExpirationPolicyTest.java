@@ -0,0 +1,74 @@
+package org.bbottema.genericobjectpool.expirypolicies;
+
+import org.bbottema.genericobjectpool.ExpirationPolicy;
+import org.bbottema.genericobjectpool.PoolableObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class LoadAwareExpirationPolicyTest {
+
+	private final ExpirationPolicy<Integer> alwaysExpired = poolableObject -> true;
+	private PoolableObject<Integer> mockPO;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		mockPO = mock(PoolableObject.class);
+	}
+
+	@Test
+	public void testOnlyObjectsAboveRecentPeakExpire() {
+		LoadAwareExpirationPolicy<Integer> policy = new LoadAwareExpirationPolicy<>(alwaysExpired, 1000, MILLISECONDS);
+
+		policy.beforeExpiryCheck(0, 3, 5);
+		assertThat(countExpired(policy, 5)).isEqualTo(2);
+		assertThat(policy.getDemandLevel()).isEqualTo(3);
+	}
+
+	@Test
+	public void testNothingExpiresIfUnderlyingPolicyDoesNotExpire() {
+		LoadAwareExpirationPolicy<Integer> policy = new LoadAwareExpirationPolicy<>(poolableObject -> false, 1000, MILLISECONDS);
+
+		policy.beforeExpiryCheck(0, 0, 5);
+		assertThat(countExpired(policy, 5)).isZero();
+	}
+
+	@Test
+	public void testPeakIsRememberedForTheWindow() {
+		LoadAwareExpirationPolicy<Integer> policy = new LoadAwareExpirationPolicy<>(alwaysExpired, 1000, MILLISECONDS);
+
+		policy.beforeExpiryCheck(0, 4, 5);
+		assertThat(countExpired(policy, 5)).isEqualTo(1);
+		policy.beforeExpiryCheck(500, 1, 5);
+		assertThat(countExpired(policy, 5)).isEqualTo(1);
+		policy.beforeExpiryCheck(1500, 1, 5);
+		assertThat(countExpired(policy, 5)).isEqualTo(4);
+	}
+
+	@Test
+	public void testDemandLevelDecaysGraduallyAfterPeakLeavesWindow() {
+		LoadAwareExpirationPolicy<Integer> policy = new LoadAwareExpirationPolicy<>(alwaysExpired, 1000, MILLISECONDS, 0.5);
+
+		policy.beforeExpiryCheck(0, 8, 8);
+		assertThat(policy.getDemandLevel()).isEqualTo(8);
+		policy.beforeExpiryCheck(1000, 0, 8);
+		assertThat(policy.getDemandLevel()).isEqualTo(4);
+		policy.beforeExpiryCheck(3000, 0, 8);
+		assertThat(policy.getDemandLevel()).isEqualTo(1);
+		assertThat(countExpired(policy, 8)).isEqualTo(7);
+	}
+
+	private int countExpired(LoadAwareExpirationPolicy<Integer> policy, int availableObjects) {
+		int expired = 0;
+		for (int i = 0; i < availableObjects; i++) {
+			if (policy.hasExpired(mockPO)) {
+				expired++;
+			}
+		}
+		return expired;
+	}
+}
@@ -0,0 +1,40 @@
+package org.bbottema.genericobjectpool.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+
+	@Test
+	public void testPermitsAreSpreadEvenly() {
+		ManualClock clock = new ManualClock();
+		RateLimiter rateLimiter = new RateLimiter(2, clock);
+
+		assertThat(rateLimiter.tryAcquire()).isTrue();
+		assertThat(rateLimiter.tryAcquire()).isFalse();
+		clock.advance(499, TimeUnit.MILLISECONDS);
+		assertThat(rateLimiter.tryAcquire()).isFalse();
+		clock.advance(1, TimeUnit.MILLISECONDS);
+		assertThat(rateLimiter.tryAcquire()).isTrue();
+		assertThat(rateLimiter.tryAcquire()).isFalse();
+	}
+
+	@Test
+	public void testQuietPeriodOnlySavesUpATenthOfASecondWorthOfPermits() {
+		ManualClock clock = new ManualClock();
+		RateLimiter rateLimiter = new RateLimiter(100, clock);
+		clock.advance(1, TimeUnit.MINUTES);
+
+		int acquired = 0;
+		while (rateLimiter.tryAcquire()) {
+			acquired++;
+		}
+		assertThat(acquired).isEqualTo(10);
+		clock.advance(10, TimeUnit.MILLISECONDS);
+		assertThat(rateLimiter.tryAcquire()).isTrue();
+		assertThat(rateLimiter.tryAcquire()).isFalse();
+	}
+}